@@ -0,0 +1,295 @@
+package com.tabia.config;
+
+import com.tabia.service.BroadcastPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound channel executor with a per-client queue and a slow-consumer policy
+ * Messages for one client are written in order, one at a time, on the shared pool. While a client
+ * lags, queued messages marked with a supersede key are replaced by newer ones with the same key
+ * (see BroadcastPublisher#SUPERSEDE_KEY_HEADER); sequenced tab updates and versioned presence deltas
+ * are never marked, since dropping one would make the client replay or resync.
+ * A client whose current write exceeds the send time limit, or whose queue exceeds the limit
+ * after coalescing, is disconnected
+ */
+public class ClientOutboundExecutor extends ThreadPoolTaskExecutor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClientOutboundExecutor.class);
+    
+    // Messages sent for one client before its drain yields the pool thread to other clients
+    private static final int DRAIN_BATCH = 32;
+    
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final long sendTimeLimitNanos;
+    private final int maxQueuedPerClient;
+    
+    private final Map<String, ClientQueue> clients = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    
+    private final Counter superseded;
+    private final Counter disconnected;
+    
+    public ClientOutboundExecutor(MeterRegistry meterRegistry, String name, Duration sendTimeLimit, int maxQueuedPerClient) {
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.sendTimeLimitNanos = sendTimeLimit.toNanos();
+        this.maxQueuedPerClient = maxQueuedPerClient;
+        
+        this.superseded = Counter.builder("tabia.websocket.outbound.superseded")
+            .description("Queued outbound messages dropped because a newer one replaced them")
+            .register(meterRegistry);
+        this.disconnected = Counter.builder("tabia.websocket.outbound.slow-consumers")
+            .description("Clients disconnected for exceeding the outbound send time or queue limit")
+            .register(meterRegistry);
+        Gauge.builder("tabia.websocket.outbound.queued", queued, AtomicInteger::get)
+            .description("Outbound messages waiting in per-client queues")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Outbound messages for one client, plus the start time of the write in progress
+     */
+    private static final class ClientQueue {
+        private final String sessionId;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        private boolean draining;
+        private boolean retired;
+        private volatile long sendStartNanos;
+        
+        private ClientQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+    
+    private record Entry(Runnable task, String supersedeKey) {
+    }
+    
+    /**
+     * Pool task that sends a batch of one client's messages, flagged instead of handed to the
+     * rejection policy when the pool refuses it
+     */
+    private final class Drain implements Runnable {
+        private final ClientQueue client;
+        private boolean rejected;
+        
+        private Drain(ClientQueue client) {
+            this.client = client;
+        }
+        
+        @Override
+        public void run() {
+            drain(client);
+        }
+    }
+    
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        RejectedExecutionHandler drainAware = (task, pool) -> {
+            if (task instanceof Drain drain) {
+                drain.rejected = true;
+            } else {
+                handler.rejectedExecution(task, pool);
+            }
+        };
+        ExecutorService executorService = super.initializeExecutor(threadFactory, drainAware);
+        new ExecutorServiceMetrics(executorService, name, Tags.empty()).bindTo(meterRegistry);
+        return executorService;
+    }
+    
+    /**
+     * Queue a channel send task behind the client's earlier messages
+     */
+    @Override
+    public void execute(Runnable task) {
+        Message<?> message = task instanceof MessageHandlingRunnable runnable ? runnable.getMessage() : null;
+        String sessionId = message != null ? SimpMessageHeaderAccessor.getSessionId(message.getHeaders()) : null;
+        if (sessionId == null) {
+            super.execute(task);
+            return;
+        }
+        
+        Entry entry = new Entry(task, supersedeKey(message.getHeaders()));
+        String limitExceeded = null;
+        ClientQueue client = null;
+        boolean startDrain = false;
+        while (client == null) {
+            ClientQueue candidate = clients.computeIfAbsent(sessionId, ClientQueue::new);
+            synchronized (candidate) {
+                // A drain retired this queue after emptying it; start a fresh one
+                if (candidate.retired) {
+                    continue;
+                }
+                limitExceeded = enqueue(candidate, entry);
+                startDrain = !candidate.draining;
+                candidate.draining = true;
+                client = candidate;
+            }
+        }
+        
+        // Submit outside the queue lock so a rejection policy never runs a drain while it is held.
+        // A refused drain leaves the messages queued for the client's next message to pick up,
+        // and the queue limit still disconnects a client whose drains keep being refused
+        if (startDrain && !submitDrain(client)) {
+            synchronized (client) {
+                client.draining = false;
+            }
+        }
+        
+        // Close outside the queue lock, closing may block on the network
+        if (limitExceeded != null) {
+            disconnect(sessionId, limitExceeded);
+        }
+    }
+    
+    /**
+     * Add an entry after dropping the queued entries it supersedes
+     * Returns the exceeded limit if the client should be disconnected, otherwise null
+     */
+    private String enqueue(ClientQueue client, Entry entry) {
+        if (entry.supersedeKey() != null) {
+            Iterator<Entry> it = client.entries.iterator();
+            while (it.hasNext()) {
+                if (entry.supersedeKey().equals(it.next().supersedeKey())) {
+                    it.remove();
+                    queued.decrementAndGet();
+                    superseded.increment();
+                }
+            }
+        }
+        client.entries.add(entry);
+        queued.incrementAndGet();
+        
+        long sendStart = client.sendStartNanos;
+        String limitExceeded = null;
+        if (client.entries.size() > maxQueuedPerClient) {
+            limitExceeded = "outbound queue limit " + maxQueuedPerClient + " exceeded";
+        } else if (sendStart != 0 && System.nanoTime() - sendStart > sendTimeLimitNanos) {
+            limitExceeded = "send time limit exceeded";
+        }
+        if (limitExceeded != null) {
+            queued.addAndGet(-client.entries.size());
+            client.entries.clear();
+        }
+        return limitExceeded;
+    }
+    
+    /**
+     * Hand a drain for the client to the pool, returning false if the pool refused it
+     */
+    private boolean submitDrain(ClientQueue client) {
+        Drain drain = new Drain(client);
+        super.execute(drain);
+        return !drain.rejected;
+    }
+    
+    private void drain(ClientQueue client) {
+        do {
+            for (int sent = 0; sent < DRAIN_BATCH; sent++) {
+                Entry entry;
+                synchronized (client) {
+                    entry = client.entries.poll();
+                    if (entry == null) {
+                        client.draining = false;
+                        client.retired = true;
+                        clients.remove(client.sessionId, client);
+                        return;
+                    }
+                    queued.decrementAndGet();
+                }
+                
+                client.sendStartNanos = System.nanoTime();
+                try {
+                    entry.task().run();
+                } finally {
+                    client.sendStartNanos = 0;
+                }
+            }
+            // Yield to other clients, keeping this client's place in line; when the pool is full,
+            // keep draining on this thread instead
+        } while (!submitDrain(client));
+    }
+    
+    private void disconnect(String sessionId, String reason) {
+        disconnected.increment();
+        logger.warn("Disconnecting slow WebSocket client {}: {}", sessionId, reason);
+        
+        WebSocketSession session = sessions.get(sessionId);
+        if (session != null) {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                logger.debug("Failed to close slow WebSocket client {}: {}", sessionId, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Coalescing key of an outbound message, or null if it must always be delivered
+     */
+    static String supersedeKey(MessageHeaders headers) {
+        return NativeMessageHeaderAccessor.getFirstNativeHeader(BroadcastPublisher.SUPERSEDE_KEY_HEADER, headers);
+    }
+    
+    /**
+     * Drop the messages still queued for a closed session
+     */
+    private void discardQueue(String sessionId) {
+        ClientQueue client = clients.remove(sessionId);
+        if (client != null) {
+            synchronized (client) {
+                client.retired = true;
+                queued.addAndGet(-client.entries.size());
+                client.entries.clear();
+            }
+        }
+    }
+    
+    /**
+     * Track open WebSocket sessions so slow clients can be closed from the outbound pool
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+            
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                discardQueue(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+}
\ No newline at end of file
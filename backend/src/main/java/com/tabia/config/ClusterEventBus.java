@@ -0,0 +1,395 @@
+package com.tabia.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tabia.dto.websocket.UserPresenceMessage;
+import com.tabia.service.UserPresenceService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cross-node fan-out of WebSocket broadcasts through Postgres LISTEN/NOTIFY
+ * Registered on the broker channel, it copies every local /topic broadcast into batched
+ * NOTIFY payloads, and rebroadcasts events from other nodes through the local broker
+ * Events too large for one NOTIFY are sent as ordered chunks and reassembled by the receivers
+ * Session events keep the sequence and origin their node stamped (see SessionEventLog); presence
+ * broadcasts also feed the presence service's view of other nodes' users
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.event-bus.enabled", havingValue = "true")
+public class ClusterEventBus implements ChannelInterceptor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterEventBus.class);
+    
+    // Header marking messages received from another node, so they are not published again
+    static final String ORIGIN_HEADER = "clusterOrigin";
+    
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_BYTES = 7900;
+    
+    // Raw bytes per chunk of an oversized event; base64 and the chunk envelope stay under the limit
+    static final int CHUNK_BYTES = (MAX_PAYLOAD_BYTES - 400) / 4 * 3;
+    
+    private static final Pattern PRESENCE_DESTINATION = Pattern.compile("/topic/session/[^/]+/presence");
+    
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ObjectProvider<UserPresenceService> userPresenceService;
+    private final String channel;
+    private final Duration flushInterval;
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Queue<ObjectNode> outbound = new ConcurrentLinkedQueue<>();
+    
+    // Chunks of oversized events from other nodes, origin:chunk id -> parts received so far
+    private final Cache<String, byte[][]> partialEvents = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofMinutes(1))
+        .build();
+    
+    private ScheduledExecutorService flusher;
+    private Thread listener;
+    private volatile boolean running;
+    
+    public ClusterEventBus(DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                           ObjectProvider<SimpMessagingTemplate> messagingTemplate,
+                           ObjectProvider<UserPresenceService> userPresenceService,
+                           @Value("${cluster.event-bus.channel:tabia_events}") String channel,
+                           @Value("${cluster.event-bus.flush-interval:PT0.01S}") Duration flushInterval) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("cluster.event-bus.channel must be a lowercase SQL identifier");
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.messagingTemplate = messagingTemplate;
+        this.userPresenceService = userPresenceService;
+        this.channel = channel;
+        this.flushInterval = flushInterval;
+    }
+    
+    @PostConstruct
+    void start() {
+        running = true;
+        
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "cluster-event-flush"));
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        
+        listener = daemon(this::listen, "cluster-event-listen");
+        listener.start();
+        
+        logger.info("Cluster event bus started on channel {} as node {}", channel, nodeId);
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        flusher.shutdown();
+        listener.interrupt();
+    }
+    
+    /**
+     * Queue local /topic broadcasts for the next NOTIFY batch
+     * Messages that arrived from another node carry the origin header and are left alone
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel messageChannel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        
+        if (SimpMessageHeaderAccessor.getMessageType(headers) == SimpMessageType.MESSAGE
+                && destination != null && destination.startsWith("/topic/")
+                && !headers.containsKey(ORIGIN_HEADER)
+                && message.getPayload() instanceof byte[] payload) {
+            
+            ObjectNode event = objectMapper.createObjectNode();
+            event.put("destination", destination);
+            Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+            if (contentType != null) {
+                event.put("contentType", contentType.toString());
+            }
+            event.put("payload", new String(payload, StandardCharsets.UTF_8));
+            outbound.add(event);
+        }
+        return message;
+    }
+    
+    /**
+     * Send everything queued since the last flush, packed into as few NOTIFY calls as fit
+     */
+    void flush() {
+        List<ObjectNode> events = new ArrayList<>();
+        ObjectNode event;
+        while ((event = outbound.poll()) != null) {
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        
+        try {
+            for (String batch : packBatches(events)) {
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, channel, batch);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to publish {} cluster events: {}", events.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Pack events into JSON batches that each stay under the NOTIFY payload limit
+     * An event too large to fit on its own is split into chunk batches, in place of the event
+     */
+    List<String> packBatches(List<ObjectNode> events) {
+        String prefix = "{\"origin\":\"" + nodeId + "\",\"events\":[";
+        String suffix = "]}";
+        int overhead = prefix.length() + suffix.length();
+        
+        List<String> batches = new ArrayList<>();
+        StringBuilder batch = new StringBuilder(prefix);
+        int batchBytes = overhead;
+        int batchEvents = 0;
+        
+        for (ObjectNode event : events) {
+            String json = event.toString();
+            int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+            if (overhead + bytes > MAX_PAYLOAD_BYTES) {
+                if (batchEvents > 0) {
+                    batches.add(batch.append(suffix).toString());
+                    batch = new StringBuilder(prefix);
+                    batchBytes = overhead;
+                    batchEvents = 0;
+                }
+                for (ObjectNode chunk : chunk(json)) {
+                    batches.add(prefix + chunk + suffix);
+                }
+                logger.debug("Split cluster event for {} ({} bytes) into chunks",
+                            event.path("destination").asText(), bytes);
+                continue;
+            }
+            if (batchBytes + bytes + 1 > MAX_PAYLOAD_BYTES) {
+                batches.add(batch.append(suffix).toString());
+                batch = new StringBuilder(prefix);
+                batchBytes = overhead;
+                batchEvents = 0;
+            }
+            if (batchEvents > 0) {
+                batch.append(',');
+                batchBytes++;
+            }
+            batch.append(json);
+            batchBytes += bytes;
+            batchEvents++;
+        }
+        
+        if (batchEvents > 0) {
+            batches.add(batch.append(suffix).toString());
+        }
+        return batches;
+    }
+    
+    /**
+     * Split an event's JSON into base64 chunks sharing one chunk id
+     */
+    private List<ObjectNode> chunk(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        int count = (bytes.length + CHUNK_BYTES - 1) / CHUNK_BYTES;
+        String chunkId = UUID.randomUUID().toString();
+        
+        List<ObjectNode> chunks = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            int from = index * CHUNK_BYTES;
+            int to = Math.min(bytes.length, from + CHUNK_BYTES);
+            byte[] part = Arrays.copyOfRange(bytes, from, to);
+            
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.put("chunk", chunkId);
+            chunk.put("index", index);
+            chunk.put("count", count);
+            chunk.put("data", Base64.getEncoder().encodeToString(part));
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+    
+    /**
+     * Rebroadcast a batch received from the channel to local subscribers
+     * Our own batches come back through LISTEN too and are skipped by origin
+     */
+    void deliver(String notification) {
+        JsonNode batch;
+        try {
+            batch = objectMapper.readTree(notification);
+        } catch (IOException e) {
+            logger.warn("Ignoring malformed cluster event batch: {}", e.getMessage());
+            return;
+        }
+        
+        String origin = batch.path("origin").asText();
+        if (nodeId.equals(origin)) {
+            return;
+        }
+        
+        for (JsonNode event : batch.path("events")) {
+            if (event.has("chunk")) {
+                event = reassemble(origin, event);
+                if (event == null) {
+                    continue;
+                }
+            }
+            String destination = event.path("destination").asText();
+            
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            if (event.hasNonNull("contentType")) {
+                accessor.setContentType(MimeType.valueOf(event.get("contentType").asText()));
+            }
+            accessor.setHeader(ORIGIN_HEADER, origin);
+            accessor.setLeaveMutable(true);
+            
+            byte[] payload = event.path("payload").asText().getBytes(StandardCharsets.UTF_8);
+            messagingTemplate.getObject().send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+            
+            if (PRESENCE_DESTINATION.matcher(destination).matches()) {
+                trackRemotePresence(origin, payload);
+            }
+        }
+    }
+    
+    /**
+     * Hand another node's presence broadcast to the presence service, which lists its users in snapshots
+     */
+    private void trackRemotePresence(String origin, byte[] payload) {
+        UserPresenceService presence = userPresenceService.getIfAvailable();
+        if (presence == null) {
+            return;
+        }
+        try {
+            presence.applyRemotePresence(objectMapper.readValue(payload, UserPresenceMessage.class));
+        } catch (IOException e) {
+            logger.warn("Ignoring malformed presence event from {}: {}", origin, e.getMessage());
+        }
+    }
+    
+    /**
+     * Collect one chunk of an oversized event, returning the event once its last chunk arrived
+     * NOTIFYs from one connection arrive in order, so the event keeps its place among the others
+     */
+    private JsonNode reassemble(String origin, JsonNode chunk) {
+        String key = origin + ":" + chunk.path("chunk").asText();
+        int count = chunk.path("count").asInt();
+        int index = chunk.path("index").asInt();
+        if (count <= 0 || index < 0 || index >= count) {
+            logger.warn("Ignoring malformed cluster event chunk from {}", origin);
+            return null;
+        }
+        
+        byte[][] parts = partialEvents.get(key, k -> new byte[count][]);
+        parts[index] = Base64.getDecoder().decode(chunk.path("data").asText());
+        for (byte[] part : parts) {
+            if (part == null) {
+                return null;
+            }
+        }
+        partialEvents.invalidate(key);
+        
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] json = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, json, offset, part.length);
+            offset += part.length;
+        }
+        
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            logger.warn("Ignoring malformed chunked cluster event from {}: {}", origin, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Hold one connection in LISTEN and poll it for notifications, reconnecting on failure
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.error("Cluster event listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.tabia.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound channel executor that keeps each collaboration session's messages in order
+ * Messages for /app/session/{id}/... and /topic/session/{id}/... are hashed by session id onto
+ * single-threaded lanes (FIFO within a session, parallel across sessions); frames without a destination
+ * (CONNECT, UNSUBSCRIBE, DISCONNECT, heartbeats) are hashed by STOMP session id so one client's stay
+ * in order; anything else (user queues) runs on the shared pool. A full lane refuses the message
+ * rather than stalling the transport thread that read it
+ */
+public class SessionStripedExecutor extends ThreadPoolTaskExecutor {
+    
+    private static final String[] SESSION_PREFIXES = {"/app/session/", "/topic/session/"};
+    
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final int laneCount;
+    private final int laneQueueCapacity;
+    
+    private ThreadPoolExecutor[] lanes;
+    
+    public SessionStripedExecutor(MeterRegistry meterRegistry, String name, int laneCount, int laneQueueCapacity) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Lane count must be positive");
+        }
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.laneCount = laneCount;
+        this.laneQueueCapacity = laneQueueCapacity;
+    }
+    
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        ExecutorService shared = super.initializeExecutor(threadFactory, handler);
+        new ExecutorServiceMetrics(shared, name, Tags.empty()).bindTo(meterRegistry);
+        
+        Counter rejected = Counter.builder("tabia.websocket.lane.rejected")
+            .description("Inbound messages refused by a full session lane")
+            .register(meterRegistry);
+        
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(laneQueueCapacity),
+                new CustomizableThreadFactory(getThreadNamePrefix() + "lane-" + i + "-"),
+                // Waiting for room would block the client's transport thread, and caller-runs would break
+                // FIFO order; the sender gets an ERROR frame instead
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Session lane is full");
+                });
+            lanes[i] = lane;
+            
+            Gauge.builder("tabia.websocket.lane.depth", lane, executor -> executor.getQueue().size())
+                .description("Messages queued on an inbound session lane")
+                .tag("lane", String.valueOf(i))
+                .register(meterRegistry);
+        }
+        return shared;
+    }
+    
+    /**
+     * Route a channel send task to its session's lane, or to the shared pool
+     */
+    @Override
+    public void execute(Runnable task) {
+        String laneKey = task instanceof MessageHandlingRunnable runnable ? laneKey(runnable.getMessage()) : null;
+        if (laneKey == null || lanes == null) {
+            super.execute(task);
+            return;
+        }
+        lanes[laneIndex(laneKey, laneCount)].execute(task);
+    }
+    
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (lanes != null) {
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Key of the lane a message runs on: the collaboration session of a session-scoped destination,
+     * the STOMP session of a frame without a destination, or null for the shared pool
+     */
+    static String laneKey(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getDestination(message.getHeaders()) == null) {
+            return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        }
+        return sessionKey(message);
+    }
+    
+    /**
+     * Session id segment of a session-scoped destination, or null for anything else
+     */
+    static String sessionKey(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return null;
+        }
+        for (String prefix : SESSION_PREFIXES) {
+            if (destination.startsWith(prefix)) {
+                int start = prefix.length();
+                int end = destination.indexOf('/', start);
+                String key = end < 0 ? destination.substring(start) : destination.substring(start, end);
+                return key.isEmpty() ? null : key;
+            }
+        }
+        return null;
+    }
+    
+    static int laneIndex(String sessionKey, int laneCount) {
+        int hash = sessionKey.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), laneCount);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.tabia.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Builds the bounded thread pools behind the inbound and outbound STOMP channels
+ * The broker channel has no pool so broadcasts reach the broker in publish order
+ * Each pool reads websocket.executor.{channel}.* and publishes executor.* metrics tagged with its name
+ */
+@Component
+public class WebSocketChannelExecutors {
+    
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    
+    private ClientOutboundExecutor outbound;
+    
+    public WebSocketChannelExecutors(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * Pool for messages received from clients, striped into per-session lanes
+     * A full lane refuses session-scoped messages; the shared pool uses the rejection policy
+     */
+    public ThreadPoolTaskExecutor inbound() {
+        int lanes = environment.getProperty("websocket.executor.inbound.lanes", Integer.class, PROCESSORS * 2);
+        int laneQueueCapacity = environment.getProperty("websocket.executor.inbound.lane-queue-capacity", Integer.class, 1000);
+        return configure(new SessionStripedExecutor(meterRegistry, "websocket.inbound", lanes, laneQueueCapacity),
+                         "inbound", PROCESSORS, PROCESSORS * 2, 1000);
+    }
+    
+    /**
+     * Pool for messages written to client sessions, with per-client queues and the slow-consumer policy
+     * Shared with the transport configuration, which registers its session tracking decorator
+     */
+    public synchronized ClientOutboundExecutor outbound() {
+        if (outbound == null) {
+            Duration sendTimeLimit = environment.getProperty("websocket.transport.send-time-limit", Duration.class, Duration.ofSeconds(10));
+            int maxQueued = environment.getProperty("websocket.slow-consumer.max-queued-messages", Integer.class, 500);
+            outbound = new ClientOutboundExecutor(meterRegistry, "websocket.outbound", sendTimeLimit, maxQueued);
+            configure(outbound, "outbound", PROCESSORS * 2, PROCESSORS * 4, 5000);
+        }
+        return outbound;
+    }
+    
+    private ThreadPoolTaskExecutor configure(ThreadPoolTaskExecutor executor, String channel,
+                                             int defaultCoreSize, int defaultMaxSize, int defaultQueueCapacity) {
+        String prefix = "websocket.executor." + channel + ".";
+        int coreSize = environment.getProperty(prefix + "core-size", Integer.class, defaultCoreSize);
+        int maxSize = environment.getProperty(prefix + "max-size", Integer.class, Math.max(coreSize, defaultMaxSize));
+        int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, defaultQueueCapacity);
+        int keepAliveSeconds = environment.getProperty(prefix + "keep-alive-seconds", Integer.class, 60);
+        String rejectionPolicy = environment.getProperty(prefix + "rejection-policy", "caller-runs");
+        
+        Counter rejected = Counter.builder("tabia.websocket.executor.rejected")
+            .description("Tasks refused by a full WebSocket channel pool")
+            .tag("channel", channel)
+            .tag("policy", rejectionPolicy)
+            .register(meterRegistry);
+        RejectedExecutionHandler policy = rejectionPolicy(rejectionPolicy);
+        
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(keepAliveSeconds);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            policy.rejectedExecution(task, pool);
+        });
+        return executor;
+    }
+    
+    private static RejectedExecutionHandler rejectionPolicy(String name) {
+        return switch (name) {
+            case "caller-runs" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case "abort" -> new ThreadPoolExecutor.AbortPolicy();
+            case "discard" -> new ThreadPoolExecutor.DiscardPolicy();
+            default -> throw new IllegalArgumentException("Unknown WebSocket executor rejection policy: " + name);
+        };
+    }
+}
\ No newline at end of file
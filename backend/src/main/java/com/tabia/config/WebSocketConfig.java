@@ -1,11 +1,17 @@
 package com.tabia.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.time.Duration;
 
 /**
  * WebSocket configuration for real-time collaboration
@@ -16,20 +22,78 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     private final WebSocketAuthChannelInterceptor authChannelInterceptor;
+    private final ObjectProvider<ClusterEventBus> clusterEventBus;
+    private final WebSocketChannelExecutors channelExecutors;
+    
+    private final boolean relayEnabled;
+    private final String relayHost;
+    private final int relayPort;
+    private final String relayVirtualHost;
+    private final String relayLogin;
+    private final String relayPasscode;
     
-    public WebSocketConfig(WebSocketAuthChannelInterceptor authChannelInterceptor) {
+    private final Duration sendTimeLimit;
+    private final int sendBufferSizeLimit;
+    private final int messageSizeLimit;
+    
+    public WebSocketConfig(WebSocketAuthChannelInterceptor authChannelInterceptor,
+                           ObjectProvider<ClusterEventBus> clusterEventBus,
+                           WebSocketChannelExecutors channelExecutors,
+                           @Value("${websocket.broker.relay.enabled:false}") boolean relayEnabled,
+                           @Value("${websocket.broker.relay.host:localhost}") String relayHost,
+                           @Value("${websocket.broker.relay.port:61613}") int relayPort,
+                           @Value("${websocket.broker.relay.virtual-host:}") String relayVirtualHost,
+                           @Value("${websocket.broker.relay.login:guest}") String relayLogin,
+                           @Value("${websocket.broker.relay.passcode:guest}") String relayPasscode,
+                           @Value("${websocket.transport.send-time-limit:PT10S}") Duration sendTimeLimit,
+                           @Value("${websocket.transport.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+                           @Value("${websocket.transport.message-size-limit:65536}") int messageSizeLimit) {
         this.authChannelInterceptor = authChannelInterceptor;
+        this.clusterEventBus = clusterEventBus;
+        this.channelExecutors = channelExecutors;
+        this.relayEnabled = relayEnabled;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.relayVirtualHost = relayVirtualHost;
+        this.relayLogin = relayLogin;
+        this.relayPasscode = relayPasscode;
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.messageSizeLimit = messageSizeLimit;
     }
 
     /**
      * Configure message broker for real-time messaging
      * /topic - for broadcasting to multiple subscribers (session updates)
      * /queue - for point-to-point messaging (user-specific notifications)
+     * With the relay enabled both are served by an external STOMP broker shared by all nodes
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple in-memory message broker
-        config.enableSimpleBroker("/topic", "/queue");
+        if (relayEnabled) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    // Share user sessions between nodes so /user destinations resolve cluster-wide
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Enable simple in-memory message broker
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+        
+        // The broker channel stays on the caller thread: a pool would let two sends to one destination
+        // reach the broker in either order, breaking sequence and presence version order. Callers that
+        // publish bursts (tab batches, presence) already run off the request path.
+        // Publish local broadcasts to the other nodes when the cluster event bus is enabled
+        clusterEventBus.ifAvailable(config.configureBrokerChannel()::interceptors);
         
         // Set application destination prefix for client messages
         config.setApplicationDestinationPrefixes("/app");
@@ -61,5 +125,26 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(authChannelInterceptor);
+        registration.taskExecutor(channelExecutors.inbound());
+    }
+    
+    /**
+     * Configure client outbound channel with a bounded pool instead of the unbounded default
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutors.outbound());
+    }
+    
+    /**
+     * Configure per-session send limits so a stalled client is disconnected instead of buffering without bound
+     * The outbound executor's slow-consumer policy coalesces that client's queued messages first
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(channelExecutors.outbound()::decorate);
     }
 }
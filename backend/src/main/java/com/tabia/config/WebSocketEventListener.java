@@ -43,7 +43,7 @@ public class WebSocketEventListener {
     
     /**
      * Handle WebSocket disconnection
-     * Remove user from all session presence tracking
+     * Release this connection from session presence tracking
      */
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
@@ -53,8 +53,8 @@ public class WebSocketEventListener {
         if (headerAccessor.getUser() instanceof FirebaseAuthenticationToken) {
             FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) headerAccessor.getUser();
             
-            // Remove user from all sessions they were present in
-            userPresenceService.removeUserFromAllSessions(auth.getUid());
+            // Release this connection; the user stays present wherever another window is still open
+            userPresenceService.removeConnection(sessionId, auth.getUid());
             
             logger.debug("WebSocket disconnected for user: {} (session: {})", 
                         auth.getName(), sessionId);
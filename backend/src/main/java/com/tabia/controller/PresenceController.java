@@ -0,0 +1,58 @@
+package com.tabia.controller;
+
+import com.tabia.config.FirebaseAuthenticationToken;
+import com.tabia.dto.PresenceBatchRequest;
+import com.tabia.dto.SessionPresenceResponse;
+import com.tabia.service.PresenceQueryService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for live session presence
+ * Serves presence badges for the session list without a WebSocket subscription per session
+ */
+@RestController
+@RequestMapping("/api/presence")
+public class PresenceController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PresenceController.class);
+    
+    private final PresenceQueryService presenceQueryService;
+    
+    public PresenceController(PresenceQueryService presenceQueryService) {
+        this.presenceQueryService = presenceQueryService;
+    }
+    
+    /**
+     * Get active user counts and avatars for several sessions
+     * POST /api/presence/batch
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<SessionPresenceResponse>> getPresenceBatch(
+            Authentication authentication,
+            @Valid @RequestBody PresenceBatchRequest request) {
+        
+        String userId = getUserId(authentication);
+        List<SessionPresenceResponse> presence = presenceQueryService.getPresenceForSessions(userId, request.getSessionIds());
+        
+        logger.debug("Retrieved presence for {} of {} sessions for user: {}",
+                    presence.size(), request.getSessionIds().size(), userId);
+        return ResponseEntity.ok(presence);
+    }
+    
+    /**
+     * Extract user ID from Firebase authentication token
+     */
+    private String getUserId(Authentication authentication) {
+        if (authentication instanceof FirebaseAuthenticationToken) {
+            return ((FirebaseAuthenticationToken) authentication).getUid();
+        }
+        throw new IllegalStateException("Invalid authentication type");
+    }
+}
\ No newline at end of file
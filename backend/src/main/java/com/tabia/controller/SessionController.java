@@ -4,6 +4,7 @@ import com.tabia.config.FirebaseAuthenticationToken;
 import com.tabia.dto.CreateSessionRequest;
 import com.tabia.dto.SessionResponse;
 import com.tabia.dto.UpdateSessionRequest;
+import com.tabia.exception.ETags;
 import com.tabia.service.SessionService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -73,24 +74,30 @@ public class SessionController {
         String userId = getUserId(authentication);
         SessionResponse session = sessionService.getSessionById(userId, sessionId);
         
-        return ResponseEntity.ok(session);
+        return ETags.okWithVersion(session, session.getVersion());
     }
     
     /**
      * Update session properties (rename, star/unstar)
      * PATCH /api/sessions/{sessionId}
+     * Optional If-Match header makes the update conditional on the session version
      */
     @PatchMapping("/{sessionId}")
     public ResponseEntity<SessionResponse> updateSession(
             Authentication authentication,
             @PathVariable UUID sessionId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody UpdateSessionRequest request) {
         
         String userId = getUserId(authentication);
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            request.setExpectedVersion(expectedVersion);
+        }
         SessionResponse response = sessionService.updateSession(userId, sessionId, request);
         
         logger.info("Updated session {} for user: {}", sessionId, userId);
-        return ResponseEntity.ok(response);
+        return ETags.okWithVersion(response, response.getVersion());
     }
     
     /**
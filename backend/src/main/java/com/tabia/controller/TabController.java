@@ -4,6 +4,7 @@ import com.tabia.config.FirebaseAuthenticationToken;
 import com.tabia.dto.AddTabRequest;
 import com.tabia.dto.TabResponse;
 import com.tabia.dto.UpdateTabRequest;
+import com.tabia.exception.ETags;
 import com.tabia.service.TabService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -52,18 +53,24 @@ public class TabController {
     /**
      * Update an existing tab
      * PUT /api/tabs/{tabId}
+     * Optional If-Match header makes the update conditional on the tab version
      */
     @PutMapping("/{tabId}")
     public ResponseEntity<TabResponse> updateTab(
             Authentication authentication,
             @PathVariable UUID tabId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody UpdateTabRequest request) {
         
         String userId = getUserId(authentication);
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion != null) {
+            request.setExpectedVersion(expectedVersion);
+        }
         TabResponse response = tabService.updateTab(userId, tabId, request);
         
         logger.info("Updated tab {} by user: {}", tabId, userId);
-        return ResponseEntity.ok(response);
+        return ETags.okWithVersion(response, response.getVersion());
     }
     
     /**
@@ -2,25 +2,41 @@ package com.tabia.controller;
 
 import com.tabia.config.FirebaseAuthenticationToken;
 import com.tabia.dto.AddTabRequest;
+import com.tabia.dto.MoveTabRequest;
+import com.tabia.dto.SessionResponse;
 import com.tabia.dto.TabResponse;
 import com.tabia.dto.UpdateTabRequest;
+import com.tabia.dto.websocket.SessionReplayMessage;
+import com.tabia.dto.websocket.SessionSnapshotMessage;
 import com.tabia.dto.websocket.SessionUpdateMessage;
 import com.tabia.dto.websocket.TabUpdateMessage;
 import com.tabia.dto.websocket.UserPresenceMessage;
+import com.tabia.exception.ConflictException;
+import com.tabia.exception.GlobalExceptionHandler;
+import com.tabia.exception.ResourceNotFoundException;
+import com.tabia.service.BroadcastPublisher;
+import com.tabia.service.SessionEventLog;
 import com.tabia.service.SessionService;
 import com.tabia.service.TabService;
+import com.tabia.service.TabUpdateBroadcaster;
 import com.tabia.service.UserPresenceService;
 import com.tabia.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -36,40 +52,110 @@ public class WebSocketSessionController {
     private final TabService tabService;
     private final UserPresenceService userPresenceService;
     private final UserService userService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final TabUpdateBroadcaster tabUpdateBroadcaster;
+    private final BroadcastPublisher broadcastPublisher;
+    private final SessionEventLog sessionEventLog;
     
     public WebSocketSessionController(SessionService sessionService, TabService tabService, 
                                     UserPresenceService userPresenceService, UserService userService,
-                                    SimpMessagingTemplate messagingTemplate) {
+                                    TabUpdateBroadcaster tabUpdateBroadcaster, BroadcastPublisher broadcastPublisher,
+                                    SessionEventLog sessionEventLog) {
         this.sessionService = sessionService;
         this.tabService = tabService;
         this.userPresenceService = userPresenceService;
         this.userService = userService;
-        this.messagingTemplate = messagingTemplate;
+        this.tabUpdateBroadcaster = tabUpdateBroadcaster;
+        this.broadcastPublisher = broadcastPublisher;
+        this.sessionEventLog = sessionEventLog;
     }
     
     /**
-     * Handle user subscribing to session updates
-     * Automatically adds user to presence tracking
+     * Handle user subscribing to a session and reply with its current state
+     * SUBSCRIBE /app/session/{sessionId}; the access check loads the session with its tabs, which is
+     * returned together with the current update sequence and presence instead of a separate REST fetch.
+     * Automatically adds user to presence tracking; failures are reported on /user/queue/errors
      */
-    @SubscribeMapping("/topic/session/{sessionId}")
-    public void subscribeToSession(@DestinationVariable String sessionId, Principal principal) {
-        if (principal instanceof FirebaseAuthenticationToken) {
-            FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
-            UUID sessionUUID = UUID.fromString(sessionId);
-            
-            // Verify user has access to this session
-            try {
-                sessionService.getSessionById(auth.getUid(), sessionUUID);
-                
-                // Add user to presence tracking
-                userPresenceService.joinSession(sessionUUID, auth.getUid(), auth.getName(), auth.getEmail());
-                
-                logger.debug("User {} subscribed to session {}", auth.getName(), sessionId);
-            } catch (Exception e) {
-                logger.warn("User {} attempted to subscribe to unauthorized session {}", auth.getUid(), sessionId);
-            }
+    @SubscribeMapping("/session/{sessionId}")
+    public SessionSnapshotMessage subscribeToSession(@DestinationVariable String sessionId, Principal principal,
+                                                     SimpMessageHeaderAccessor headerAccessor) {
+        if (!(principal instanceof FirebaseAuthenticationToken)) {
+            throw new IllegalStateException("Invalid authentication");
         }
+        
+        FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
+        UUID sessionUUID = UUID.fromString(sessionId);
+        
+        // Read the sequence first: updates racing with the load are replayed rather than lost
+        Long sequence = sessionEventLog.currentSequence(sessionUUID);
+        
+        // Verify user has access to this session
+        SessionResponse session = sessionService.getSessionById(auth.getUid(), sessionUUID);
+        
+        // Add user to presence tracking
+        userPresenceService.joinSession(sessionUUID, headerAccessor.getSessionId(),
+                                        auth.getUid(), auth.getName(), auth.getEmail());
+        
+        logger.debug("User {} subscribed to session {}", auth.getName(), sessionId);
+        return new SessionSnapshotMessage(session, sessionEventLog.origin(), sequence,
+                                          userPresenceService.getPresenceSnapshot(sessionUUID));
+    }
+    
+    /**
+     * Resend the presence snapshot after the client saw a gap in delta versions
+     * POST /app/session/{sessionId}/presence/resync
+     */
+    @MessageMapping("/session/{sessionId}/presence/resync")
+    @SendToUser(destinations = "/queue/presence", broadcast = false)
+    public UserPresenceMessage resyncPresence(@DestinationVariable String sessionId, Principal principal) {
+        return presenceSnapshot(sessionId, principal);
+    }
+    
+    /**
+     * Replay the tab and session updates a reconnecting client missed
+     * SUBSCRIBE /app/session/{sessionId}/replay with last-origin and last-sequence headers; the reply
+     * asks for a full reload when the gap has already left the replay buffer or was numbered elsewhere.
+     * Like the session subscribe, it adds the user to presence tracking and carries the presence snapshot
+     */
+    @SubscribeMapping("/session/{sessionId}/replay")
+    public SessionReplayMessage replay(@DestinationVariable String sessionId,
+                                       @Header(value = "last-origin", required = false) String lastOrigin,
+                                       @Header("last-sequence") long lastSequence,
+                                       Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        if (!(principal instanceof FirebaseAuthenticationToken)) {
+            throw new IllegalStateException("Invalid authentication");
+        }
+        
+        FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
+        UUID sessionUUID = UUID.fromString(sessionId);
+        
+        // Verify user has access to this session
+        sessionService.getSessionById(auth.getUid(), sessionUUID);
+        
+        // Rejoining is a no-op while the connection is still tracked
+        userPresenceService.joinSession(sessionUUID, headerAccessor.getSessionId(),
+                                        auth.getUid(), auth.getName(), auth.getEmail());
+        UserPresenceMessage presence = userPresenceService.getPresenceSnapshot(sessionUUID);
+        
+        String origin = sessionEventLog.origin();
+        return sessionEventLog.since(sessionUUID, lastOrigin, lastSequence)
+            .map(events -> new SessionReplayMessage(sessionUUID, origin, sessionEventLog.currentSequence(sessionUUID),
+                                                    false, events, presence))
+            .orElseGet(() -> new SessionReplayMessage(sessionUUID, origin, sessionEventLog.currentSequence(sessionUUID),
+                                                      true, List.of(), presence));
+    }
+    
+    private UserPresenceMessage presenceSnapshot(String sessionId, Principal principal) {
+        if (!(principal instanceof FirebaseAuthenticationToken)) {
+            throw new IllegalStateException("Invalid authentication");
+        }
+        
+        FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
+        UUID sessionUUID = UUID.fromString(sessionId);
+        
+        // Verify user has access to this session
+        sessionService.getSessionById(auth.getUid(), sessionUUID);
+        
+        return userPresenceService.getPresenceSnapshot(sessionUUID);
     }
     
     /**
@@ -77,8 +163,7 @@ public class WebSocketSessionController {
      * POST /app/session/{sessionId}/add-tab
      */
     @MessageMapping("/session/{sessionId}/add-tab")
-    @SendTo("/topic/session/{sessionId}/tabs")
-    public TabUpdateMessage addTab(@DestinationVariable String sessionId, 
+    public void addTab(@DestinationVariable String sessionId, 
                                   AddTabRequest request, 
                                   Principal principal) {
         
@@ -99,10 +184,10 @@ public class WebSocketSessionController {
             logger.info("User {} added tab '{}' to session {} via WebSocket", 
                        auth.getName(), tab.getTitle(), sessionId);
             
-            return new TabUpdateMessage(
+            tabUpdateBroadcaster.publish(new TabUpdateMessage(
                 TabUpdateMessage.UpdateType.TAB_ADDED,
                 sessionUUID, tab, auth.getUid(), auth.getName()
-            );
+            ));
             
         } catch (Exception e) {
             logger.error("Failed to add tab via WebSocket: {}", e.getMessage());
@@ -115,8 +200,7 @@ public class WebSocketSessionController {
      * POST /app/session/{sessionId}/remove-tab/{tabId}
      */
     @MessageMapping("/session/{sessionId}/remove-tab/{tabId}")
-    @SendTo("/topic/session/{sessionId}/tabs")
-    public TabUpdateMessage removeTab(@DestinationVariable String sessionId,
+    public void removeTab(@DestinationVariable String sessionId,
                                      @DestinationVariable String tabId,
                                      Principal principal) {
         
@@ -141,10 +225,10 @@ public class WebSocketSessionController {
             logger.info("User {} removed tab '{}' from session {} via WebSocket", 
                        auth.getName(), tab.getTitle(), sessionId);
             
-            return new TabUpdateMessage(
+            tabUpdateBroadcaster.publish(new TabUpdateMessage(
                 TabUpdateMessage.UpdateType.TAB_REMOVED,
                 sessionUUID, tab, auth.getUid(), auth.getName()
-            );
+            ));
             
         } catch (Exception e) {
             logger.error("Failed to remove tab via WebSocket: {}", e.getMessage());
@@ -157,8 +241,7 @@ public class WebSocketSessionController {
      * POST /app/session/{sessionId}/update-tab/{tabId}
      */
     @MessageMapping("/session/{sessionId}/update-tab/{tabId}")
-    @SendTo("/topic/session/{sessionId}/tabs")
-    public TabUpdateMessage updateTab(@DestinationVariable String sessionId,
+    public void updateTab(@DestinationVariable String sessionId,
                                      @DestinationVariable String tabId,
                                      UpdateTabRequest request,
                                      Principal principal) {
@@ -181,10 +264,10 @@ public class WebSocketSessionController {
             logger.info("User {} updated tab '{}' in session {} via WebSocket", 
                        auth.getName(), tab.getTitle(), sessionId);
             
-            return new TabUpdateMessage(
+            tabUpdateBroadcaster.publish(new TabUpdateMessage(
                 TabUpdateMessage.UpdateType.TAB_UPDATED,
                 sessionUUID, tab, auth.getUid(), auth.getName()
-            );
+            ));
             
         } catch (Exception e) {
             logger.error("Failed to update tab via WebSocket: {}", e.getMessage());
@@ -192,12 +275,53 @@ public class WebSocketSessionController {
         }
     }
     
+    /**
+     * Move tab to a new position via WebSocket
+     * POST /app/session/{sessionId}/move-tab/{tabId}; the client applies the move before sending it,
+     * a move that lost to a concurrent one comes back as a conflict with the winning position
+     */
+    @MessageMapping("/session/{sessionId}/move-tab/{tabId}")
+    public void moveTab(@DestinationVariable String sessionId,
+                        @DestinationVariable String tabId,
+                        MoveTabRequest request,
+                        Principal principal) {
+        
+        if (!(principal instanceof FirebaseAuthenticationToken)) {
+            throw new IllegalStateException("Invalid authentication");
+        }
+        
+        FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
+        UUID sessionUUID = UUID.fromString(sessionId);
+        UUID tabUUID = UUID.fromString(tabId);
+        
+        try {
+            // Move tab through service layer
+            TabResponse tab = tabService.moveTab(auth.getUid(), tabUUID, request);
+            
+            // Update user activity
+            userPresenceService.updateUserActivity(sessionUUID, auth.getUid());
+            
+            logger.debug("User {} moved tab {} in session {} via WebSocket", 
+                        auth.getName(), tabId, sessionId);
+            
+            tabUpdateBroadcaster.publish(new TabUpdateMessage(
+                TabUpdateMessage.UpdateType.TAB_REORDERED,
+                sessionUUID, tab, auth.getUid(), auth.getName()
+            ));
+            
+        } catch (Exception e) {
+            logger.error("Failed to move tab via WebSocket: {}", e.getMessage());
+            throw e;
+        }
+    }
+    
     /**
      * Join session for presence tracking
      * POST /app/session/{sessionId}/join
      */
     @MessageMapping("/session/{sessionId}/join")
-    public void joinSession(@DestinationVariable String sessionId, Principal principal) {
+    public void joinSession(@DestinationVariable String sessionId, Principal principal,
+                            SimpMessageHeaderAccessor headerAccessor) {
         if (principal instanceof FirebaseAuthenticationToken) {
             FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
             UUID sessionUUID = UUID.fromString(sessionId);
@@ -207,7 +331,8 @@ public class WebSocketSessionController {
                 sessionService.getSessionById(auth.getUid(), sessionUUID);
                 
                 // Add to presence tracking
-                userPresenceService.joinSession(sessionUUID, auth.getUid(), auth.getName(), auth.getEmail());
+                userPresenceService.joinSession(sessionUUID, headerAccessor.getSessionId(),
+                                                auth.getUid(), auth.getName(), auth.getEmail());
                 
             } catch (Exception e) {
                 logger.warn("User {} failed to join session {}: {}", auth.getUid(), sessionId, e.getMessage());
@@ -220,30 +345,111 @@ public class WebSocketSessionController {
      * POST /app/session/{sessionId}/leave
      */
     @MessageMapping("/session/{sessionId}/leave")
-    public void leaveSession(@DestinationVariable String sessionId, Principal principal) {
+    public void leaveSession(@DestinationVariable String sessionId, Principal principal,
+                             SimpMessageHeaderAccessor headerAccessor) {
+        if (principal instanceof FirebaseAuthenticationToken) {
+            FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
+            UUID sessionUUID = UUID.fromString(sessionId);
+            
+            userPresenceService.leaveSession(sessionUUID, headerAccessor.getSessionId(), auth.getUid());
+        }
+    }
+    
+    /**
+     * Presence heartbeat, keeps an idle but connected user from being expired
+     * A user already expired while the connection stayed open is added back
+     * POST /app/session/{sessionId}/heartbeat
+     */
+    @MessageMapping("/session/{sessionId}/heartbeat")
+    public void heartbeat(@DestinationVariable String sessionId, Principal principal,
+                          SimpMessageHeaderAccessor headerAccessor) {
         if (principal instanceof FirebaseAuthenticationToken) {
             FirebaseAuthenticationToken auth = (FirebaseAuthenticationToken) principal;
             UUID sessionUUID = UUID.fromString(sessionId);
             
-            userPresenceService.leaveSession(sessionUUID, auth.getUid());
+            if (!userPresenceService.updateUserActivity(sessionUUID, auth.getUid())) {
+                joinSession(sessionId, principal, headerAccessor);
+            }
         }
     }
     
     /**
-     * Broadcast session update to all subscribers
+     * Send version conflicts back to the sender only, with the current state
+     * Mirrors the 409 response of the REST API so clients can rebase and retry
+     */
+    @MessageExceptionHandler(ConflictException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public GlobalExceptionHandler.ConflictErrorResponse handleConflict(ConflictException ex) {
+        logger.warn("Rejected stale WebSocket update: {}", ex.getMessage());
+        
+        return new GlobalExceptionHandler.ConflictErrorResponse(
+            HttpStatus.CONFLICT.value(), "Conflict", ex.getMessage(), LocalDateTime.now(), ex.getCurrentState()
+        );
+    }
+    
+    /**
+     * Send lost concurrent writes back to the sender as a conflict, like the REST API's 409
+     * The winning state is not known here, the client reloads and retries
+     */
+    @MessageExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public GlobalExceptionHandler.ErrorResponse handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        logger.warn("Concurrent WebSocket update lost: {}", ex.getMessage());
+        
+        return new GlobalExceptionHandler.ErrorResponse(
+            HttpStatus.CONFLICT.value(), "Conflict", "Resource was modified concurrently, please reload and retry",
+            LocalDateTime.now()
+        );
+    }
+    
+    /**
+     * Send a missing or inaccessible session back to the sender, like the REST API's 404
+     * The destination tells the client which request failed
+     */
+    @MessageExceptionHandler(ResourceNotFoundException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public GlobalExceptionHandler.MessageErrorResponse handleNotFound(ResourceNotFoundException ex,
+                                                                      SimpMessageHeaderAccessor headerAccessor) {
+        logger.warn("Rejected WebSocket request to {}: {}", headerAccessor.getDestination(), ex.getMessage());
+        
+        return new GlobalExceptionHandler.MessageErrorResponse(
+            HttpStatus.NOT_FOUND.value(), "Resource Not Found", ex.getMessage(), LocalDateTime.now(),
+            headerAccessor.getDestination()
+        );
+    }
+    
+    /**
+     * Report any other failure to the sender instead of leaving it waiting for a reply
+     */
+    @MessageExceptionHandler(Exception.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public GlobalExceptionHandler.MessageErrorResponse handleUnexpected(Exception ex, SimpMessageHeaderAccessor headerAccessor) {
+        logger.error("WebSocket request to {} failed: ", headerAccessor.getDestination(), ex);
+        
+        return new GlobalExceptionHandler.MessageErrorResponse(
+            HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal Server Error", "An unexpected error occurred",
+            LocalDateTime.now(), headerAccessor.getDestination()
+        );
+    }
+    
+    /**
+     * Broadcast session update to all subscribers, numbered in the session's event sequence
      * Used by other services to notify about session changes
      */
     public void broadcastSessionUpdate(SessionUpdateMessage message) {
-        messagingTemplate.convertAndSend("/topic/session/" + message.getSessionId() + "/updates", message);
+        sessionEventLog.append(message.getSessionId(), List.of(message), () ->
+            broadcastPublisher.publish("/topic/session/" + message.getSessionId() + "/updates", message));
+        if (message.getType() == SessionUpdateMessage.UpdateType.SESSION_DELETED) {
+            sessionEventLog.remove(message.getSessionId());
+        }
         logger.debug("Broadcasted session update: {} for session {}", message.getType(), message.getSessionId());
     }
     
     /**
-     * Broadcast tab update to all subscribers
+     * Broadcast tab update to all subscribers, batched with other updates to the session
      * Used by other services to notify about tab changes
      */
     public void broadcastTabUpdate(TabUpdateMessage message) {
-        messagingTemplate.convertAndSend("/topic/session/" + message.getSessionId() + "/tabs", message);
-        logger.debug("Broadcasted tab update: {} for session {}", message.getType(), message.getSessionId());
+        tabUpdateBroadcaster.publish(message);
     }
 }
@@ -15,6 +15,7 @@ public class AddTabRequest {
     
     private Integer tabIndex; // If not provided, will be added at the end
     private Integer windowIndex = 0; // Default to first window
+    private String orderKey; // Key picked by the client between its neighbours, else appended
     
     // Constructors
     public AddTabRequest() {}
@@ -58,4 +59,12 @@ public class AddTabRequest {
     public void setWindowIndex(Integer windowIndex) {
         this.windowIndex = windowIndex;
     }
+    
+    public String getOrderKey() {
+        return orderKey;
+    }
+    
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.tabia.dto;
 
 import com.tabia.model.Collaborator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
 /**
@@ -13,6 +15,10 @@ public class CreateInviteRequest {
     
     private Integer expiresInHours = 24; // Default to 24 hours
     
+    @Min(value = 1, message = "Invite must allow at least one use")
+    @Max(value = 10000, message = "Invite cannot allow more than 10000 uses")
+    private Integer maxUses = 1; // Default to single-use
+    
     // Constructors
     public CreateInviteRequest() {}
     
@@ -37,4 +43,12 @@ public class CreateInviteRequest {
     public void setExpiresInHours(Integer expiresInHours) {
         this.expiresInHours = expiresInHours;
     }
+    
+    public Integer getMaxUses() {
+        return maxUses;
+    }
+    
+    public void setMaxUses(Integer maxUses) {
+        this.maxUses = maxUses;
+    }
 }
\ No newline at end of file
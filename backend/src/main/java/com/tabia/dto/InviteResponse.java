@@ -20,6 +20,8 @@ public class InviteResponse {
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
     private Boolean used;
+    private Integer maxUses;
+    private Integer remainingUses;
     
     // Constructors
     public InviteResponse() {}
@@ -119,4 +121,20 @@ public class InviteResponse {
     public void setUsed(Boolean used) {
         this.used = used;
     }
+    
+    public Integer getMaxUses() {
+        return maxUses;
+    }
+    
+    public void setMaxUses(Integer maxUses) {
+        this.maxUses = maxUses;
+    }
+    
+    public Integer getRemainingUses() {
+        return remainingUses;
+    }
+    
+    public void setRemainingUses(Integer remainingUses) {
+        this.remainingUses = remainingUses;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.tabia.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * DTO for moving a tab to a new position
+ * The client picks the key between its new neighbours and stamps the move with its Lamport clock
+ */
+public class MoveTabRequest {
+    
+    @NotBlank(message = "Position key is required")
+    private String orderKey;
+    
+    @NotNull(message = "Window index is required")
+    private Integer windowIndex;
+    
+    @NotNull(message = "Clock is required")
+    @PositiveOrZero(message = "Clock must not be negative")
+    private Long clock;
+    
+    @NotBlank(message = "Replica ID is required")
+    private String replicaId;
+    
+    // Constructors
+    public MoveTabRequest() {}
+    
+    public MoveTabRequest(String orderKey, Integer windowIndex, Long clock, String replicaId) {
+        this.orderKey = orderKey;
+        this.windowIndex = windowIndex;
+        this.clock = clock;
+        this.replicaId = replicaId;
+    }
+    
+    // Getters and Setters
+    public String getOrderKey() {
+        return orderKey;
+    }
+    
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+    
+    public Integer getWindowIndex() {
+        return windowIndex;
+    }
+    
+    public void setWindowIndex(Integer windowIndex) {
+        this.windowIndex = windowIndex;
+    }
+    
+    public Long getClock() {
+        return clock;
+    }
+    
+    public void setClock(Long clock) {
+        this.clock = clock;
+    }
+    
+    public String getReplicaId() {
+        return replicaId;
+    }
+    
+    public void setReplicaId(String replicaId) {
+        this.replicaId = replicaId;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.tabia.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for querying live presence of several sessions at once
+ */
+public class PresenceBatchRequest {
+    
+    @NotEmpty(message = "At least one session ID is required")
+    @Size(max = 200, message = "Cannot query more than 200 sessions at once")
+    private List<UUID> sessionIds;
+    
+    // Constructors
+    public PresenceBatchRequest() {}
+    
+    public PresenceBatchRequest(List<UUID> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+    
+    // Getters and Setters
+    public List<UUID> getSessionIds() {
+        return sessionIds;
+    }
+    
+    public void setSessionIds(List<UUID> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+}
\ No newline at end of file
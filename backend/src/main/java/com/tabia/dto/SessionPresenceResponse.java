@@ -0,0 +1,88 @@
+package com.tabia.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for the live presence summary of a session
+ */
+public class SessionPresenceResponse {
+    
+    private UUID sessionId;
+    private int activeUserCount;
+    private List<Avatar> avatars;
+    
+    // Nested class for the users shown on a presence badge
+    public static class Avatar {
+        private String userId;
+        private String userName;
+        private String photoUrl;
+        
+        public Avatar() {}
+        
+        public Avatar(String userId, String userName, String photoUrl) {
+            this.userId = userId;
+            this.userName = userName;
+            this.photoUrl = photoUrl;
+        }
+        
+        // Getters and Setters
+        public String getUserId() {
+            return userId;
+        }
+        
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+        
+        public String getUserName() {
+            return userName;
+        }
+        
+        public void setUserName(String userName) {
+            this.userName = userName;
+        }
+        
+        public String getPhotoUrl() {
+            return photoUrl;
+        }
+        
+        public void setPhotoUrl(String photoUrl) {
+            this.photoUrl = photoUrl;
+        }
+    }
+    
+    // Constructors
+    public SessionPresenceResponse() {}
+    
+    public SessionPresenceResponse(UUID sessionId, int activeUserCount, List<Avatar> avatars) {
+        this.sessionId = sessionId;
+        this.activeUserCount = activeUserCount;
+        this.avatars = avatars;
+    }
+    
+    // Getters and Setters
+    public UUID getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public int getActiveUserCount() {
+        return activeUserCount;
+    }
+    
+    public void setActiveUserCount(int activeUserCount) {
+        this.activeUserCount = activeUserCount;
+    }
+    
+    public List<Avatar> getAvatars() {
+        return avatars;
+    }
+    
+    public void setAvatars(List<Avatar> avatars) {
+        this.avatars = avatars;
+    }
+}
\ No newline at end of file
@@ -21,6 +21,7 @@ public class SessionResponse {
     private LocalDateTime updatedAt;
     private List<TabResponse> tabs;
     private Integer collaboratorCount;
+    private Long version;
     
     // Constructors
     public SessionResponse() {}
@@ -136,4 +137,12 @@ public class SessionResponse {
     public void setCollaboratorCount(Integer collaboratorCount) {
         this.collaboratorCount = collaboratorCount;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
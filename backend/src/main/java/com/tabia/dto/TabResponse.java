@@ -15,6 +15,10 @@ public class TabResponse {
     private Integer tabIndex;
     private Integer windowIndex;
     private LocalDateTime createdAt;
+    private Long version;
+    private String orderKey;
+    private Long orderClock;
+    private String orderReplica;
     
     // Constructors
     public TabResponse() {}
@@ -86,4 +90,36 @@ public class TabResponse {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getOrderKey() {
+        return orderKey;
+    }
+    
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+    
+    public Long getOrderClock() {
+        return orderClock;
+    }
+    
+    public void setOrderClock(Long orderClock) {
+        this.orderClock = orderClock;
+    }
+    
+    public String getOrderReplica() {
+        return orderReplica;
+    }
+    
+    public void setOrderReplica(String orderReplica) {
+        this.orderReplica = orderReplica;
+    }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ public class UpdateSessionRequest {
     
     private String name;
     private Boolean isStarred;
+    private Long expectedVersion; // If set, update only applies to this version
     
     // Constructors
     public UpdateSessionRequest() {}
@@ -32,4 +33,12 @@ public class UpdateSessionRequest {
     public void setIsStarred(Boolean isStarred) {
         this.isStarred = isStarred;
     }
+    
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+    
+    public void setExpectedVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
 }
\ No newline at end of file
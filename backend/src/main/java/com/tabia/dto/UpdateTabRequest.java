@@ -9,6 +9,7 @@ public class UpdateTabRequest {
     private String url;
     private Integer tabIndex;
     private Integer windowIndex;
+    private Long expectedVersion; // If set, update only applies to this version
     
     // Constructors
     public UpdateTabRequest() {}
@@ -52,4 +53,12 @@ public class UpdateTabRequest {
     public void setWindowIndex(Integer windowIndex) {
         this.windowIndex = windowIndex;
     }
+    
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+    
+    public void setExpectedVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
 }
\ No newline at end of file
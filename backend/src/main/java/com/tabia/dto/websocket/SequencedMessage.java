@@ -0,0 +1,17 @@
+package com.tabia.dto.websocket;
+
+/**
+ * Session event carrying its position in the session's event sequence
+ * Sequences increase monotonically per session and origin node across tab and session updates;
+ * sequences from different origins are unrelated
+ */
+public interface SequencedMessage {
+    
+    Long getSequence();
+    
+    void setSequence(Long sequence);
+    
+    String getOrigin();
+    
+    void setOrigin(String origin);
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.tabia.dto.websocket;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Events a reconnecting client missed since its last seen sequence
+ * When resetRequired is set the gap is no longer buffered, or was numbered by another node, and
+ * the client must reload the session. Replaying also (re)joins presence, whose snapshot is included
+ */
+public class SessionReplayMessage {
+    
+    private UUID sessionId;
+    private String origin;
+    private Long currentSequence;
+    private boolean resetRequired;
+    private List<SequencedMessage> events;
+    private UserPresenceMessage presence;
+    
+    // Constructors
+    public SessionReplayMessage() {}
+    
+    public SessionReplayMessage(UUID sessionId, String origin, Long currentSequence, boolean resetRequired,
+                                List<SequencedMessage> events, UserPresenceMessage presence) {
+        this.sessionId = sessionId;
+        this.origin = origin;
+        this.currentSequence = currentSequence;
+        this.resetRequired = resetRequired;
+        this.events = events;
+        this.presence = presence;
+    }
+    
+    // Getters and Setters
+    public UUID getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public String getOrigin() {
+        return origin;
+    }
+    
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+    
+    public Long getCurrentSequence() {
+        return currentSequence;
+    }
+    
+    public void setCurrentSequence(Long currentSequence) {
+        this.currentSequence = currentSequence;
+    }
+    
+    public boolean isResetRequired() {
+        return resetRequired;
+    }
+    
+    public void setResetRequired(boolean resetRequired) {
+        this.resetRequired = resetRequired;
+    }
+    
+    public List<SequencedMessage> getEvents() {
+        return events;
+    }
+    
+    public void setEvents(List<SequencedMessage> events) {
+        this.events = events;
+    }
+    
+    public UserPresenceMessage getPresence() {
+        return presence;
+    }
+    
+    public void setPresence(UserPresenceMessage presence) {
+        this.presence = presence;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.tabia.dto.websocket;
+
+import com.tabia.dto.SessionResponse;
+
+/**
+ * Initial state sent to a client subscribing to a session
+ * Updates from the snapshot's origin with a sequence above the snapshot's sequence apply on top of it
+ */
+public class SessionSnapshotMessage {
+    
+    private SessionResponse session;
+    private String origin;
+    private Long sequence;
+    private UserPresenceMessage presence;
+    
+    // Constructors
+    public SessionSnapshotMessage() {}
+    
+    public SessionSnapshotMessage(SessionResponse session, String origin, Long sequence, UserPresenceMessage presence) {
+        this.session = session;
+        this.origin = origin;
+        this.sequence = sequence;
+        this.presence = presence;
+    }
+    
+    // Getters and Setters
+    public SessionResponse getSession() {
+        return session;
+    }
+    
+    public void setSession(SessionResponse session) {
+        this.session = session;
+    }
+    
+    public String getOrigin() {
+        return origin;
+    }
+    
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+    
+    public Long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public UserPresenceMessage getPresence() {
+        return presence;
+    }
+    
+    public void setPresence(UserPresenceMessage presence) {
+        this.presence = presence;
+    }
+}
\ No newline at end of file
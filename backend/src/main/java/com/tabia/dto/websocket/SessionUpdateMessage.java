@@ -10,7 +10,7 @@ import java.util.UUID;
  * WebSocket message for session-level updates
  * Broadcast to all users with access to the session
  */
-public class SessionUpdateMessage {
+public class SessionUpdateMessage implements SequencedMessage {
     
     public enum UpdateType {
         SESSION_RENAMED,
@@ -28,6 +28,9 @@ public class SessionUpdateMessage {
     private String userName;
     private String userEmail;
     
+    private Long sequence;
+    private String origin;
+    
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
     
@@ -102,6 +105,26 @@ public class SessionUpdateMessage {
         this.userEmail = userEmail;
     }
     
+    @Override
+    public Long getSequence() {
+        return sequence;
+    }
+    
+    @Override
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+    
+    @Override
+    public String getOrigin() {
+        return origin;
+    }
+    
+    @Override
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,56 @@
+package com.tabia.dto.websocket;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * WebSocket message carrying several tab updates for one session in a single frame
+ * Updates are in the order they were applied
+ */
+public class TabUpdateBatchMessage {
+    
+    private UUID sessionId;
+    private List<TabUpdateMessage> updates;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+    
+    // Constructors
+    public TabUpdateBatchMessage() {
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    public TabUpdateBatchMessage(UUID sessionId, List<TabUpdateMessage> updates) {
+        this();
+        this.sessionId = sessionId;
+        this.updates = updates;
+    }
+    
+    // Getters and Setters
+    public UUID getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public List<TabUpdateMessage> getUpdates() {
+        return updates;
+    }
+    
+    public void setUpdates(List<TabUpdateMessage> updates) {
+        this.updates = updates;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
\ No newline at end of file
@@ -10,7 +10,7 @@ import java.util.UUID;
  * WebSocket message for tab-level updates
  * Broadcast to all users with access to the session
  */
-public class TabUpdateMessage {
+public class TabUpdateMessage implements SequencedMessage {
     
     public enum UpdateType {
         TAB_ADDED,
@@ -25,6 +25,9 @@ public class TabUpdateMessage {
     private String userId;
     private String userName;
     
+    private Long sequence;
+    private String origin;
+    
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
     
@@ -83,6 +86,26 @@ public class TabUpdateMessage {
         this.userName = userName;
     }
     
+    @Override
+    public Long getSequence() {
+        return sequence;
+    }
+    
+    @Override
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+    
+    @Override
+    public String getOrigin() {
+        return origin;
+    }
+    
+    @Override
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -15,7 +15,9 @@ public class UserPresenceMessage {
     public enum PresenceType {
         USER_JOINED,
         USER_LEFT,
-        PRESENCE_UPDATE
+        PRESENCE_UPDATE,
+        PRESENCE_DELTA,
+        PRESENCE_SNAPSHOT
     }
     
     private PresenceType type;
@@ -25,6 +27,14 @@ public class UserPresenceMessage {
     private String userEmail;
     private List<UserInfo> activeUsers;
     
+    // Per-session presence version of the origin node; deltas are numbered consecutively, snapshots
+    // carry the version they reflect. Every node numbers its own users, so versions compare per origin
+    private String origin;
+    private Long version;
+    private List<OriginPresence> origins;
+    private List<UserInfo> joined;
+    private List<String> left;
+    
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
     
@@ -78,6 +88,46 @@ public class UserPresenceMessage {
         }
     }
     
+    // Users connected to one node and that node's presence version, listed in snapshots
+    public static class OriginPresence {
+        private String origin;
+        private Long version;
+        private List<UserInfo> activeUsers;
+        
+        public OriginPresence() {}
+        
+        public OriginPresence(String origin, Long version, List<UserInfo> activeUsers) {
+            this.origin = origin;
+            this.version = version;
+            this.activeUsers = activeUsers;
+        }
+        
+        // Getters and Setters
+        public String getOrigin() {
+            return origin;
+        }
+        
+        public void setOrigin(String origin) {
+            this.origin = origin;
+        }
+        
+        public Long getVersion() {
+            return version;
+        }
+        
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+        
+        public List<UserInfo> getActiveUsers() {
+            return activeUsers;
+        }
+        
+        public void setActiveUsers(List<UserInfo> activeUsers) {
+            this.activeUsers = activeUsers;
+        }
+    }
+    
     // Constructors
     public UserPresenceMessage() {
         this.timestamp = LocalDateTime.now();
@@ -141,6 +191,46 @@ public class UserPresenceMessage {
         this.activeUsers = activeUsers;
     }
     
+    public String getOrigin() {
+        return origin;
+    }
+    
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+    
+    public List<OriginPresence> getOrigins() {
+        return origins;
+    }
+    
+    public void setOrigins(List<OriginPresence> origins) {
+        this.origins = origins;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public List<UserInfo> getJoined() {
+        return joined;
+    }
+    
+    public void setJoined(List<UserInfo> joined) {
+        this.joined = joined;
+    }
+    
+    public List<String> getLeft() {
+        return left;
+    }
+    
+    public void setLeft(List<String> left) {
+        this.left = left;
+    }
+    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,19 @@
+package com.tabia.exception;
+
+/**
+ * Exception thrown when an update targets a stale version of a resource
+ * Carries the current state so the client can rebase its change
+ */
+public class ConflictException extends RuntimeException {
+    
+    private final transient Object currentState;
+    
+    public ConflictException(String message, Object currentState) {
+        super(message);
+        this.currentState = currentState;
+    }
+    
+    public Object getCurrentState() {
+        return currentState;
+    }
+}
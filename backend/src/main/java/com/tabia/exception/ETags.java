@@ -0,0 +1,45 @@
+package com.tabia.exception;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Helpers mapping entity versions to ETag and If-Match headers
+ */
+public final class ETags {
+    
+    private ETags() {
+    }
+    
+    /**
+     * Build a 200 response carrying the entity version as its ETag
+     */
+    public static <T> ResponseEntity<T> okWithVersion(T body, Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version != null) {
+            builder.eTag(String.valueOf(version));
+        }
+        return builder.body(body);
+    }
+    
+    /**
+     * Parse an If-Match header into an expected entity version
+     * Accepts strong or weak ETags; "*" means any version
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+}
\ No newline at end of file
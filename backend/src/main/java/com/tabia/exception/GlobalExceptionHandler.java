@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -64,6 +65,36 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ConflictErrorResponse> handleConflict(ConflictException ex) {
+        logger.warn("Version conflict: {}", ex.getMessage());
+        
+        ConflictErrorResponse error = new ConflictErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Conflict",
+            ex.getMessage(),
+            LocalDateTime.now(),
+            ex.getCurrentState()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        logger.warn("Concurrent update lost: {}", ex.getMessage());
+        
+        // The winning write committed between our read and flush; client should refetch
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Conflict",
+            "Resource was modified concurrently, please reload and retry",
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         logger.warn("Validation failed: {}", ex.getMessage());
@@ -145,4 +176,36 @@ public class GlobalExceptionHandler {
         public Map<String, String> getFieldErrors() { return fieldErrors; }
         public void setFieldErrors(Map<String, String> fieldErrors) { this.fieldErrors = fieldErrors; }
     }
+    
+    /**
+     * Error response to a WebSocket message, with the destination the message was sent to
+     */
+    public static class MessageErrorResponse extends ErrorResponse {
+        private String destination;
+        
+        public MessageErrorResponse(int status, String error, String message, 
+                                    LocalDateTime timestamp, String destination) {
+            super(status, error, message, timestamp);
+            this.destination = destination;
+        }
+        
+        public String getDestination() { return destination; }
+        public void setDestination(String destination) { this.destination = destination; }
+    }
+    
+    /**
+     * Conflict error response with the current state of the resource
+     */
+    public static class ConflictErrorResponse extends ErrorResponse {
+        private Object current;
+        
+        public ConflictErrorResponse(int status, String error, String message, 
+                                   LocalDateTime timestamp, Object current) {
+            super(status, error, message, timestamp);
+            this.current = current;
+        }
+        
+        public Object getCurrent() { return current; }
+        public void setCurrent(Object current) { this.current = current; }
+    }
 }
\ No newline at end of file
@@ -12,7 +12,8 @@ import java.util.UUID;
  * Maps to the 'collaborator' table in PostgreSQL
  */
 @Entity
-@Table(name = "collaborator")
+@Table(name = "collaborator", uniqueConstraints = 
+       @UniqueConstraint(name = "uk_collaborator_session_user", columnNames = {"session_id", "user_id"}))
 @EntityListeners(AuditingEntityListener.class)
 public class Collaborator {
     
@@ -1,6 +1,7 @@
 package com.tabia.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -12,7 +13,10 @@ import java.util.UUID;
  * Maps to the 'invite' table in PostgreSQL
  */
 @Entity
-@Table(name = "invite")
+@Table(name = "invite", indexes = {
+    @Index(name = "idx_invite_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_invite_used", columnList = "used")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Invite {
     
@@ -42,7 +46,15 @@ public class Invite {
     private LocalDateTime expiresAt;
     
     @Column(name = "used", nullable = false)
-    private Boolean used = false;
+    private Boolean used = false; // True once every use has been claimed
+    
+    @ColumnDefault("1")
+    @Column(name = "max_uses", nullable = false)
+    private Integer maxUses = 1;
+    
+    @ColumnDefault("1")
+    @Column(name = "remaining_uses", nullable = false)
+    private Integer remainingUses = 1; // Decremented atomically in the database on accept
     
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY)
@@ -66,6 +78,13 @@ public class Invite {
         this.used = false;
     }
     
+    public Invite(UUID sessionId, String inviteCode, Collaborator.CollaboratorRole role, 
+                  String createdBy, LocalDateTime expiresAt, Integer maxUses) {
+        this(sessionId, inviteCode, role, createdBy, expiresAt);
+        this.maxUses = maxUses;
+        this.remainingUses = maxUses;
+    }
+    
     // Getters and Setters
     public UUID getId() {
         return id;
@@ -131,6 +150,22 @@ public class Invite {
         this.used = used;
     }
     
+    public Integer getMaxUses() {
+        return maxUses;
+    }
+    
+    public void setMaxUses(Integer maxUses) {
+        this.maxUses = maxUses;
+    }
+    
+    public Integer getRemainingUses() {
+        return remainingUses;
+    }
+    
+    public void setRemainingUses(Integer remainingUses) {
+        this.remainingUses = remainingUses;
+    }
+    
     public Session getSession() {
         return session;
     }
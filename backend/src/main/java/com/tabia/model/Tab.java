@@ -1,6 +1,7 @@
 package com.tabia.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -36,10 +37,24 @@ public class Tab {
     @Column(name = "window_index", nullable = false)
     private Integer windowIndex; // Which window this tab belongs to (for multi-window sessions)
     
+    @Column(name = "order_key")
+    private String orderKey; // Dense position key within the window, see TabOrderKeys
+    
+    @Column(name = "order_clock")
+    private Long orderClock; // Lamport clock of the last applied move
+    
+    @Column(name = "order_replica")
+    private String orderReplica; // Replica that made the last applied move, breaks clock ties
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version; // Optimistic lock, bumped on every update
+    
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", insertable = false, updatable = false)
@@ -105,6 +120,30 @@ public class Tab {
         this.windowIndex = windowIndex;
     }
     
+    public String getOrderKey() {
+        return orderKey;
+    }
+    
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+    
+    public Long getOrderClock() {
+        return orderClock;
+    }
+    
+    public void setOrderClock(Long orderClock) {
+        this.orderClock = orderClock;
+    }
+    
+    public String getOrderReplica() {
+        return orderReplica;
+    }
+    
+    public void setOrderReplica(String orderReplica) {
+        this.orderReplica = orderReplica;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -113,6 +152,14 @@ public class Tab {
         this.createdAt = createdAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public Session getSession() {
         return session;
     }
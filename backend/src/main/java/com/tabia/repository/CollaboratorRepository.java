@@ -2,10 +2,12 @@ package com.tabia.repository;
 
 import com.tabia.model.Collaborator;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,6 +40,20 @@ public interface CollaboratorRepository extends JpaRepository<Collaborator, UUID
     Optional<Collaborator.CollaboratorRole> findRoleBySessionIdAndUserId(@Param("sessionId") UUID sessionId, 
                                                                           @Param("userId") String userId);
     
+    /**
+     * Add collaborator unless the user is already on the session
+     * Returns 0 when the (session, user) pair already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO collaborator (id, session_id, user_id, role, added_at) " +
+                   "VALUES (:id, :sessionId, :userId, :role, :addedAt) " +
+                   "ON CONFLICT (session_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id,
+                       @Param("sessionId") UUID sessionId,
+                       @Param("userId") String userId,
+                       @Param("role") String role,
+                       @Param("addedAt") LocalDateTime addedAt);
+    
     /**
      * Remove collaborator from session
      */
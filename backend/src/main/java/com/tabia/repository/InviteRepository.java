@@ -2,9 +2,11 @@ package com.tabia.repository;
 
 import com.tabia.model.Invite;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,6 +24,25 @@ public interface InviteRepository extends JpaRepository<Invite, UUID> {
      */
     Optional<Invite> findByInviteCode(String inviteCode);
     
+    /**
+     * Store a new invite unless its code is already taken
+     * Returns empty on a code conflict; unlike a unique violation this leaves the transaction usable
+     */
+    @Query(value = "INSERT INTO invite (id, session_id, invite_code, role, created_by, created_at, expires_at, " +
+                   "used, max_uses, remaining_uses) " +
+                   "VALUES (:id, :sessionId, :inviteCode, :role, :createdBy, :createdAt, :expiresAt, " +
+                   "false, :maxUses, :maxUses) " +
+                   "ON CONFLICT (invite_code) DO NOTHING " +
+                   "RETURNING *", nativeQuery = true)
+    Optional<Invite> insertIfCodeUnused(@Param("id") UUID id,
+                                        @Param("sessionId") UUID sessionId,
+                                        @Param("inviteCode") String inviteCode,
+                                        @Param("role") String role,
+                                        @Param("createdBy") String createdBy,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("expiresAt") LocalDateTime expiresAt,
+                                        @Param("maxUses") int maxUses);
+    
     /**
      * Find all active invites for a session (not used and not expired)
      */
@@ -37,9 +58,18 @@ public interface InviteRepository extends JpaRepository<Invite, UUID> {
     List<Invite> findByCreatedByOrderByCreatedAtDesc(String createdBy);
     
     /**
-     * Check if invite code already exists
+     * Atomically claim one use of a valid invite for a user
+     * Decrements the remaining uses only if some are left, the invite is unexpired and the user
+     * is not the session owner, so concurrent accepts can never over-claim; the last use marks it used
      */
-    boolean existsByInviteCode(String inviteCode);
+    @Query(value = "UPDATE invite SET remaining_uses = remaining_uses - 1, used = (remaining_uses <= 1) " +
+                   "WHERE invite_code = :inviteCode AND used = false AND remaining_uses > 0 " +
+                   "AND expires_at > :now " +
+                   "AND NOT EXISTS (SELECT 1 FROM session s WHERE s.id = invite.session_id AND s.owner_id = :userId) " +
+                   "RETURNING *", nativeQuery = true)
+    Optional<Invite> claimValidInvite(@Param("inviteCode") String inviteCode,
+                                      @Param("userId") String userId,
+                                      @Param("now") LocalDateTime now);
     
     /**
      * Find valid (unused and not expired) invite by code
@@ -48,4 +78,15 @@ public interface InviteRepository extends JpaRepository<Invite, UUID> {
            "AND i.used = false AND i.expiresAt > :now")
     Optional<Invite> findValidInviteByCode(@Param("inviteCode") String inviteCode, 
                                            @Param("now") LocalDateTime now);
+    
+    /**
+     * Delete one bounded batch of used or expired invites
+     * Runs in its own transaction and skips rows locked by in-flight accepts
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM invite WHERE id IN (" +
+                   "SELECT id FROM invite WHERE used = true OR expires_at < :cutoff " +
+                   "LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,6 +41,15 @@ public interface SessionRepository extends JpaRepository<Session, UUID> {
     Optional<Session> findByIdAndUserHasAccess(@Param("sessionId") UUID sessionId, 
                                                @Param("userId") String userId);
     
+    /**
+     * Find which of the given sessions the user owns or collaborates on
+     */
+    @Query("SELECT DISTINCT s.id FROM Session s " +
+           "LEFT JOIN s.collaborators c " +
+           "WHERE s.id IN :sessionIds AND (s.ownerId = :userId OR c.userId = :userId)")
+    List<UUID> findAccessibleSessionIds(@Param("sessionIds") Collection<UUID> sessionIds,
+                                        @Param("userId") String userId);
+    
     /**
      * Find starred sessions for a user
      */
@@ -1,10 +1,13 @@
 package com.tabia.repository;
 
 import com.tabia.model.Tab;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -40,6 +43,45 @@ public interface TabRepository extends JpaRepository<Tab, UUID> {
     Integer findMaxTabIndexForWindow(@Param("sessionId") UUID sessionId, 
                                      @Param("windowIndex") Integer windowIndex);
     
+    /**
+     * Find the last position key in a session window, seeding the append key allocator
+     * Keys only use characters that sort the same under any collation
+     */
+    @Query("SELECT MAX(t.orderKey) FROM Tab t " +
+           "WHERE t.sessionId = :sessionId AND t.windowIndex = :windowIndex")
+    Optional<String> findMaxOrderKeyForWindow(@Param("sessionId") UUID sessionId,
+                                              @Param("windowIndex") Integer windowIndex);
+    
+    /**
+     * Move a tab if the move's (clock, replica) stamp is newer than the stored one
+     * A conditional write instead of a lock: replayed or concurrent moves converge on the highest stamp
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Tab t SET t.orderKey = :orderKey, t.windowIndex = :windowIndex, " +
+           "t.orderClock = :clock, t.orderReplica = :replica, t.version = t.version + 1 " +
+           "WHERE t.id = :tabId AND (t.orderClock IS NULL OR t.orderClock < :clock " +
+           "OR (t.orderClock = :clock AND t.orderReplica < :replica))")
+    int applyMove(@Param("tabId") UUID tabId,
+                  @Param("orderKey") String orderKey,
+                  @Param("windowIndex") Integer windowIndex,
+                  @Param("clock") Long clock,
+                  @Param("replica") String replica);
+    
+    /**
+     * Find sessions that still hold tabs created before position keys existed
+     */
+    @Query("SELECT DISTINCT t.sessionId FROM Tab t WHERE t.orderKey IS NULL")
+    List<UUID> findSessionIdsWithoutOrderKeys(Pageable pageable);
+    
+    /**
+     * Give a legacy tab its position key unless it got one in the meantime (from a move)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Tab t SET t.orderKey = :orderKey, t.orderClock = 0, t.orderReplica = '' " +
+           "WHERE t.id = :tabId AND t.orderKey IS NULL")
+    int assignOrderKeyIfMissing(@Param("tabId") UUID tabId, @Param("orderKey") String orderKey);
+    
     /**
      * Count tabs in a specific session
      */
@@ -0,0 +1,61 @@
+package com.tabia.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Sends topic broadcasts as JSON encoded exactly once per event
+ * The broker shares the resulting byte[] payload across every subscriber's outbound message,
+ * so fan-out cost does not include re-encoding, and no converter lookup or String copy is involved
+ */
+@Component
+public class BroadcastPublisher {
+    
+    /**
+     * Native header naming what a broadcast supersedes; a lagging client's queued message with
+     * the same key is dropped in favour of the newer one
+     */
+    public static final String SUPERSEDE_KEY_HEADER = "supersede-key";
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public BroadcastPublisher(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Serialize a payload once and broadcast it to a destination
+     */
+    public void publish(String destination, Object payload) {
+        publish(destination, payload, null);
+    }
+    
+    /**
+     * Serialize a payload once and broadcast it, marked as superseding earlier broadcasts with the same key
+     */
+    public void publish(String destination, Object payload, String supersedeKey) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Failed to serialize broadcast for " + destination, e);
+        }
+        
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (supersedeKey != null) {
+            accessor.setNativeHeader(SUPERSEDE_KEY_HEADER, supersedeKey);
+        }
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+}
\ No newline at end of file
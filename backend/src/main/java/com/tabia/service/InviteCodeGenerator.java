@@ -0,0 +1,125 @@
+package com.tabia.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates invite codes that are unique by construction
+ * Each code is a node-scoped sequence number run through a keyed Feistel
+ * permutation and encoded as 10 Crockford base32 characters, so codes look
+ * random but never repeat for a given node id and secret
+ */
+@Component
+public class InviteCodeGenerator {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    static final int NODE_BITS = 6;
+    private static final int SEQUENCE_BITS = 44;
+    private static final int BLOCK_BITS = NODE_BITS + SEQUENCE_BITS; // 50 bits = 10 base32 chars
+    private static final int HALF_BITS = BLOCK_BITS / 2;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    // Sequence starts at seconds since this epoch shifted left, leaving room for 4096 codes/second
+    private static final long EPOCH_SECONDS = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+    private static final int SEQUENCE_SECOND_SHIFT = 12;
+
+    private final long nodeId;
+    private final ThreadLocal<Mac> roundFunction;
+    private final AtomicLong sequence;
+
+    public InviteCodeGenerator(@Value("${invite.code.node-id:0}") int nodeId,
+                               @Value("${invite.code.secret:}") String secret) {
+        if (nodeId < 0 || nodeId >= (1 << NODE_BITS)) {
+            throw new IllegalArgumentException("invite.code.node-id must be between 0 and " + ((1 << NODE_BITS) - 1));
+        }
+        this.nodeId = nodeId;
+
+        byte[] key = deriveKey(secret);
+        this.roundFunction = ThreadLocal.withInitial(() -> newMac(key));
+
+        // Seed from the clock so a restarted node does not reissue earlier sequence numbers
+        this.sequence = new AtomicLong(currentSequenceFloor());
+    }
+
+    /**
+     * Get the next invite code for this node
+     */
+    public String nextCode() {
+        long floor = currentSequenceFloor();
+        long next = sequence.updateAndGet(current -> Math.max(current + 1, floor)) & SEQUENCE_MASK;
+        long block = (nodeId << SEQUENCE_BITS) | next;
+
+        return encode(permute(block));
+    }
+
+    /**
+     * Keyed Feistel permutation over the 50-bit block
+     * Bijective for any key, so distinct inputs always yield distinct codes
+     */
+    long permute(long block) {
+        long left = (block >>> HALF_BITS) & HALF_MASK;
+        long right = block & HALF_MASK;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long mixed = left ^ (round(round, right) & HALF_MASK);
+            left = right;
+            right = mixed;
+        }
+
+        return (left << HALF_BITS) | right;
+    }
+
+    private long round(int round, long half) {
+        Mac mac = roundFunction.get();
+        byte[] digest = mac.doFinal(ByteBuffer.allocate(Long.BYTES + 1).put((byte) round).putLong(half).array());
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private static String encode(long block) {
+        char[] code = new char[BLOCK_BITS / 5];
+        for (int i = code.length - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (block & 0x1F)];
+            block >>>= 5;
+        }
+        return new String(code);
+    }
+
+    private static long currentSequenceFloor() {
+        return (Instant.now().getEpochSecond() - EPOCH_SECONDS) << SEQUENCE_SECOND_SHIFT;
+    }
+
+    private static byte[] deriveKey(String secret) {
+        if (secret == null || secret.isBlank()) {
+            // A per-process key would permute the code space again on every restart and reissue stored codes
+            throw new IllegalArgumentException("invite.code.secret must be set to a stable value");
+        }
+
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
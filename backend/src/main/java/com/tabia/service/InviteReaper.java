@@ -0,0 +1,83 @@
+package com.tabia.service;
+
+import com.tabia.repository.InviteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Background job that purges used and expired invites
+ * Deletes in bounded batches, each in its own short transaction, so the
+ * invite table stays small without holding long locks
+ */
+@Component
+@ConditionalOnProperty(name = "invite.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class InviteReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(InviteReaper.class);
+
+    private final InviteRepository inviteRepository;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration gracePeriod;
+
+    private final Counter purgedCounter;
+    private final Timer runTimer;
+
+    public InviteReaper(InviteRepository inviteRepository, MeterRegistry meterRegistry,
+                        @Value("${invite.reaper.batch-size:500}") int batchSize,
+                        @Value("${invite.reaper.max-batches-per-run:100}") int maxBatchesPerRun,
+                        @Value("${invite.reaper.grace-period:PT1H}") Duration gracePeriod) {
+        this.inviteRepository = inviteRepository;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.gracePeriod = gracePeriod;
+
+        this.purgedCounter = Counter.builder("tabia.invites.reaped")
+            .description("Used or expired invites deleted by the reaper")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("tabia.invites.reaper.run")
+            .description("Duration of invite reaper runs")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Purge used invites and invites expired for longer than the grace period
+     * Stops early once a batch comes back short or the per-run batch budget is spent
+     */
+    @Scheduled(fixedDelayString = "${invite.reaper.interval:PT15M}",
+               initialDelayString = "${invite.reaper.initial-delay:PT1M}")
+    public void reap() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+
+        long purged = 0;
+        int batches = 0;
+        int deleted;
+        do {
+            deleted = inviteRepository.deleteExpiredBatch(cutoff, batchSize);
+            purged += deleted;
+            batches++;
+        } while (deleted == batchSize && batches < maxBatchesPerRun);
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        purgedCounter.increment(purged);
+        runTimer.record(duration);
+
+        if (purged > 0) {
+            logger.info("Invite reaper purged {} invites in {} batches ({} ms)",
+                       purged, batches, duration.toMillis());
+        } else {
+            logger.debug("Invite reaper found nothing to purge ({} ms)", duration.toMillis());
+        }
+    }
+}
@@ -9,11 +9,9 @@ import com.tabia.exception.UnauthorizedException;
 import com.tabia.model.Collaborator;
 import com.tabia.model.Invite;
 import com.tabia.model.Session;
-import com.tabia.model.User;
 import com.tabia.repository.CollaboratorRepository;
 import com.tabia.repository.InviteRepository;
 import com.tabia.repository.SessionRepository;
-import com.tabia.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -21,6 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -34,17 +35,23 @@ public class InviteService {
     
     private static final Logger logger = LoggerFactory.getLogger(InviteService.class);
     
+    // Codes are unique per node id and secret; a reused node id or changed secret can still collide
+    private static final int MAX_CODE_ATTEMPTS = 5;
+    
     private final InviteRepository inviteRepository;
     private final CollaboratorRepository collaboratorRepository;
     private final SessionRepository sessionRepository;
-    private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
+    private final InviteCodeGenerator inviteCodeGenerator;
     
     public InviteService(InviteRepository inviteRepository, CollaboratorRepository collaboratorRepository,
-                        SessionRepository sessionRepository, UserRepository userRepository) {
+                        SessionRepository sessionRepository, UserProfileCache userProfileCache,
+                        InviteCodeGenerator inviteCodeGenerator) {
         this.inviteRepository = inviteRepository;
         this.collaboratorRepository = collaboratorRepository;
         this.sessionRepository = sessionRepository;
-        this.userRepository = userRepository;
+        this.userProfileCache = userProfileCache;
+        this.inviteCodeGenerator = inviteCodeGenerator;
     }
     
     /**
@@ -60,56 +67,58 @@ public class InviteService {
             throw new UnauthorizedException("Only session owner can create invites");
         }
         
-        // Generate unique invite code
-        String inviteCode = generateUniqueInviteCode();
-        
         // Calculate expiration time
         LocalDateTime expiresAt = LocalDateTime.now().plusHours(request.getExpiresInHours());
+        int maxUses = request.getMaxUses() != null ? request.getMaxUses() : 1;
         
-        // Create the invite
-        Invite invite = new Invite(sessionId, inviteCode, request.getRole(), userId, expiresAt);
-        Invite savedInvite = inviteRepository.save(invite);
+        Invite savedInvite = insertWithUnusedCode(session, request.getRole(), userId, expiresAt, maxUses);
         
         logger.info("Created invite {} for session {} by user: {}", 
-                   inviteCode, sessionId, userId);
+                   savedInvite.getInviteCode(), sessionId, userId);
         
-        return convertToInviteResponse(savedInvite);
+        UserProfileCache.UserProfile creator = userProfileCache.get(userId).orElse(null);
+        return convertToInviteResponse(savedInvite, session, creator);
+    }
+    
+    /**
+     * Insert the invite under a fresh code, drawing another code when the insert hits a stored one
+     * The conflict is resolved by the insert itself, so creating an invite is one statement in the common case
+     */
+    private Invite insertWithUnusedCode(Session session, Collaborator.CollaboratorRole role, String userId,
+                                        LocalDateTime expiresAt, int maxUses) {
+        for (int attempt = 1; attempt <= MAX_CODE_ATTEMPTS; attempt++) {
+            Optional<Invite> inserted = inviteRepository.insertIfCodeUnused(
+                UUID.randomUUID(), session.getId(), inviteCodeGenerator.nextCode(), role.name(), userId,
+                LocalDateTime.now(), expiresAt, maxUses);
+            if (inserted.isPresent()) {
+                return inserted.get();
+            }
+            logger.warn("Generated invite code collides with a stored one (attempt {})", attempt);
+        }
+        throw new IllegalStateException("Could not generate an unused invite code");
     }
     
     /**
      * Accept an invite using invite code
      * User must be authenticated to accept
+     * Runs as two statements: a conditional claim of one invite use and an insert-if-absent of the collaborator
      */
     public void acceptInvite(String userId, String inviteCode) {
-        Invite invite = inviteRepository.findValidInviteByCode(inviteCode, LocalDateTime.now())
-            .orElseThrow(() -> new BadRequestException("Invalid or expired invite code"));
+        LocalDateTime now = LocalDateTime.now();
         
-        // Check if user is already a collaborator
-        boolean isAlreadyCollaborator = collaboratorRepository.existsBySessionIdAndUserId(
-            invite.getSessionId(), userId);
+        Invite invite = inviteRepository.claimValidInvite(inviteCode, userId, now)
+            .orElseThrow(() -> explainRejectedInvite(userId, inviteCode, now));
         
-        if (isAlreadyCollaborator) {
+        // Create collaborator entry; rolling back here also gives the claimed use back
+        int inserted = collaboratorRepository.insertIfAbsent(
+            UUID.randomUUID(), invite.getSessionId(), userId, invite.getRole().name(), now);
+        
+        if (inserted == 0) {
             throw new BadRequestException("User is already a collaborator on this session");
         }
         
-        // Check if user is the session owner
-        sessionRepository.findById(invite.getSessionId())
-            .ifPresent(session -> {
-                if (session.getOwnerId().equals(userId)) {
-                    throw new BadRequestException("Session owner cannot accept invite to their own session");
-                }
-            });
-        
-        // Create collaborator entry
-        Collaborator collaborator = new Collaborator(invite.getSessionId(), userId, invite.getRole());
-        collaboratorRepository.save(collaborator);
-        
-        // Mark invite as used
-        invite.setUsed(true);
-        inviteRepository.save(invite);
-        
-        logger.info("User {} accepted invite {} for session {}", 
-                   userId, inviteCode, invite.getSessionId());
+        logger.info("User {} accepted invite {} for session {} ({} uses left)", 
+                   userId, inviteCode, invite.getSessionId(), invite.getRemainingUses());
     }
     
     /**
@@ -124,8 +133,14 @@ public class InviteService {
         
         List<Collaborator> collaborators = collaboratorRepository.findBySessionIdOrderByAddedAtDesc(sessionId);
         
+        // Resolve every collaborator's profile at once; misses are loaded in a single query
+        Set<String> userIds = collaborators.stream()
+            .map(Collaborator::getUserId)
+            .collect(Collectors.toSet());
+        Map<String, UserProfileCache.UserProfile> usersById = userProfileCache.getAll(userIds);
+        
         return collaborators.stream()
-            .map(this::convertToCollaboratorResponse)
+            .map(collaborator -> convertToCollaboratorResponse(collaborator, usersById.get(collaborator.getUserId())))
             .collect(Collectors.toList());
     }
     
@@ -154,25 +169,28 @@ public class InviteService {
     }
     
     /**
-     * Generate a unique invite code
+     * Work out why an invite could not be claimed
+     * Only runs on the failure path, so accepting a valid invite never pays for it
      */
-    private String generateUniqueInviteCode() {
-        String inviteCode;
-        do {
-            inviteCode = UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase();
-        } while (inviteRepository.existsByInviteCode(inviteCode));
-        
-        return inviteCode;
+    private BadRequestException explainRejectedInvite(String userId, String inviteCode, LocalDateTime now) {
+        boolean ownInvite = inviteRepository.findValidInviteByCode(inviteCode, now)
+            .flatMap(invite -> sessionRepository.findById(invite.getSessionId()))
+            .map(session -> session.getOwnerId().equals(userId))
+            .orElse(false);
+        
+        if (ownInvite) {
+            return new BadRequestException("Session owner cannot accept invite to their own session");
+        }
+        return new BadRequestException("Invalid or expired invite code");
     }
     
     /**
      * Convert Invite entity to InviteResponse DTO
+     * Session and creator are passed in by the caller, which already has them loaded
      */
-    private InviteResponse convertToInviteResponse(Invite invite) {
-        Session session = sessionRepository.findById(invite.getSessionId()).orElse(null);
-        User creator = userRepository.findById(invite.getCreatedBy()).orElse(null);
-        
-        return new InviteResponse(
+    private InviteResponse convertToInviteResponse(Invite invite, Session session, 
+                                                   UserProfileCache.UserProfile creator) {
+        InviteResponse response = new InviteResponse(
             invite.getId(),
             invite.getSessionId(),
             session != null ? session.getName() : null,
@@ -184,14 +202,17 @@ public class InviteService {
             invite.getExpiresAt(),
             invite.getUsed()
         );
+        response.setMaxUses(invite.getMaxUses());
+        response.setRemainingUses(invite.getRemainingUses());
+        
+        return response;
     }
     
     /**
      * Convert Collaborator entity to CollaboratorResponse DTO
      */
-    private CollaboratorResponse convertToCollaboratorResponse(Collaborator collaborator) {
-        User user = userRepository.findById(collaborator.getUserId()).orElse(null);
-        
+    private CollaboratorResponse convertToCollaboratorResponse(Collaborator collaborator, 
+                                                               UserProfileCache.UserProfile user) {
         return new CollaboratorResponse(
             collaborator.getId(),
             collaborator.getUserId(),
@@ -0,0 +1,106 @@
+package com.tabia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Per-session debouncer for presence broadcasts
+ * A session is flushed once it has been quiet for the window, or once the
+ * maximum delay since its first pending change has passed, whichever is sooner
+ */
+class PresenceBroadcastCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceBroadcastCoalescer.class);
+
+    private final long windowNanos;
+    private final long maxDelayNanos;
+    private final Consumer<UUID> flush;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    private static final class Pending {
+        private final long firstChangeNanos;
+        private volatile long lastChangeNanos;
+
+        private Pending(long nowNanos) {
+            this.firstChangeNanos = nowNanos;
+            this.lastChangeNanos = nowNanos;
+        }
+    }
+
+    PresenceBroadcastCoalescer(Duration window, Duration maxDelay, Consumer<UUID> flush) {
+        this.windowNanos = window.toNanos();
+        this.maxDelayNanos = Math.max(maxDelay.toNanos(), windowNanos);
+        this.flush = flush;
+        this.scheduler = windowNanos > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Record a presence change for a session
+     * With a zero window the session is flushed immediately on the calling thread
+     */
+    void markDirty(UUID sessionId) {
+        if (scheduler == null) {
+            flush.accept(sessionId);
+            return;
+        }
+
+        long now = System.nanoTime();
+        boolean[] created = new boolean[1];
+        pending.compute(sessionId, (id, current) -> {
+            if (current == null) {
+                created[0] = true;
+                return new Pending(now);
+            }
+            current.lastChangeNanos = now;
+            return current;
+        });
+
+        if (created[0]) {
+            scheduler.schedule(() -> fire(sessionId), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fire(UUID sessionId) {
+        Pending current = pending.get(sessionId);
+        if (current == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long due = Math.min(current.lastChangeNanos + windowNanos, current.firstChangeNanos + maxDelayNanos);
+        if (now - due < 0) {
+            // More changes arrived during the window; wait for the session to go quiet
+            scheduler.schedule(() -> fire(sessionId), due - now, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        // Remove before flushing so a change racing with the flush schedules its own broadcast
+        pending.remove(sessionId, current);
+        try {
+            flush.accept(sessionId);
+        } catch (RuntimeException e) {
+            logger.error("Failed to broadcast presence for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
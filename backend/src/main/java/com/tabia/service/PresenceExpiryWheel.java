@@ -0,0 +1,71 @@
+package com.tabia.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel of presence entries waiting for an idle check
+ * Entries are bucketed by the tick of their deadline; heartbeats only bump the
+ * entry's lastSeen, so the wheel is never touched on the hot path. Only the
+ * scheduler thread advances the wheel, any thread may schedule into it
+ */
+class PresenceExpiryWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<UserPresenceService.UserPresenceInfo>[] buckets;
+
+    // Last tick that was drained, written only by the advancing thread
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    PresenceExpiryWheel(Duration tick, Duration span, long startMillis) {
+        if (tick.toMillis() <= 0 || span.compareTo(tick) < 0) {
+            throw new IllegalArgumentException("Presence expiry tick must be positive and no longer than the TTL");
+        }
+        this.tickMillis = tick.toMillis();
+
+        // One full rotation covers the span, so a freshly scheduled entry is visited once before it is due
+        int size = Integer.highestOneBit((int) (span.toMillis() / tickMillis) + 1) << 1;
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule an entry to be handed back once its deadline tick has been reached
+     */
+    void schedule(UserPresenceService.UserPresenceInfo info, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        buckets[(int) (tick & mask)].add(info);
+    }
+
+    /**
+     * Advance the wheel to the given time and drain every bucket passed on the way
+     * Drained entries are not necessarily expired; the caller re-checks and reschedules live ones
+     */
+    List<UserPresenceService.UserPresenceInfo> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        long ticks = Math.min(targetTick - currentTick, buckets.length);
+
+        List<UserPresenceService.UserPresenceInfo> due = new ArrayList<>();
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            Queue<UserPresenceService.UserPresenceInfo> bucket = buckets[(int) (tick & mask)];
+            UserPresenceService.UserPresenceInfo info;
+            while ((info = bucket.poll()) != null) {
+                due.add(info);
+            }
+        }
+
+        if (targetTick > currentTick) {
+            currentTick = targetTick;
+        }
+        return due;
+    }
+}
\ No newline at end of file
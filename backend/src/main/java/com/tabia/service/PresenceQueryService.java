@@ -0,0 +1,81 @@
+package com.tabia.service;
+
+import com.tabia.dto.SessionPresenceResponse;
+import com.tabia.dto.websocket.UserPresenceMessage;
+import com.tabia.repository.SessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service for reading live presence of many sessions at once
+ * Checks access with a single query, then serves counts and avatars from in-memory presence
+ */
+@Service
+@Transactional(readOnly = true)
+public class PresenceQueryService {
+    
+    private final SessionRepository sessionRepository;
+    private final UserPresenceService userPresenceService;
+    private final UserProfileCache userProfileCache;
+    private final int maxAvatars;
+    
+    public PresenceQueryService(SessionRepository sessionRepository, UserPresenceService userPresenceService,
+                                UserProfileCache userProfileCache,
+                                @Value("${presence.batch.max-avatars:5}") int maxAvatars) {
+        this.sessionRepository = sessionRepository;
+        this.userPresenceService = userPresenceService;
+        this.userProfileCache = userProfileCache;
+        this.maxAvatars = maxAvatars;
+    }
+    
+    /**
+     * Get presence summaries for the given sessions, in request order
+     * Sessions the user cannot access are left out rather than reported
+     */
+    public List<SessionPresenceResponse> getPresenceForSessions(String userId, List<UUID> sessionIds) {
+        Set<UUID> requested = new LinkedHashSet<>(sessionIds);
+        Set<UUID> accessible = new HashSet<>(sessionRepository.findAccessibleSessionIds(requested, userId));
+        
+        List<UUID> visible = new ArrayList<>();
+        List<List<UserPresenceMessage.UserInfo>> snapshots = new ArrayList<>();
+        Set<String> avatarUserIds = new HashSet<>();
+        for (UUID sessionId : requested) {
+            if (!accessible.contains(sessionId)) {
+                continue;
+            }
+            List<UserPresenceMessage.UserInfo> activeUsers = userPresenceService.getActiveUsersForSession(sessionId);
+            visible.add(sessionId);
+            snapshots.add(activeUsers);
+            activeUsers.stream().limit(maxAvatars).forEach(user -> avatarUserIds.add(user.getUserId()));
+        }
+        
+        // Photos are not part of presence, resolve them for every shown user in one cache lookup
+        Map<String, UserProfileCache.UserProfile> profiles = avatarUserIds.isEmpty()
+            ? Map.of() : userProfileCache.getAll(avatarUserIds);
+        
+        List<SessionPresenceResponse> responses = new ArrayList<>(visible.size());
+        for (int i = 0; i < visible.size(); i++) {
+            List<UserPresenceMessage.UserInfo> activeUsers = snapshots.get(i);
+            List<SessionPresenceResponse.Avatar> avatars = activeUsers.stream()
+                .limit(maxAvatars)
+                .map(user -> {
+                    UserProfileCache.UserProfile profile = profiles.get(user.getUserId());
+                    return new SessionPresenceResponse.Avatar(
+                        user.getUserId(), user.getUserName(), profile != null ? profile.getPhotoUrl() : null
+                    );
+                })
+                .toList();
+            responses.add(new SessionPresenceResponse(visible.get(i), activeUsers.size(), avatars));
+        }
+        return responses;
+    }
+}
\ No newline at end of file
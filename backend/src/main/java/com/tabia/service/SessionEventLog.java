@@ -0,0 +1,123 @@
+package com.tabia.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tabia.dto.websocket.SequencedMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Assigns per-session sequence numbers to tab and session updates and keeps the
+ * most recent ones in a bounded ring buffer, so reconnecting clients can replay what they missed
+ * A session's sequence starts at its log's creation time in epoch millis * 1000, which keeps it
+ * increasing across idle evictions; clients whose last seen sequence is outside the buffer must
+ * reload the session
+ * Every node numbers its own events, so events carry this node's origin id: clients order and
+ * deduplicate per origin, and only events from this node's log can be replayed here
+ */
+@Service
+public class SessionEventLog {
+    
+    private final String origin = UUID.randomUUID().toString();
+    private final int capacity;
+    private final Cache<UUID, SessionLog> logs;
+    
+    public SessionEventLog(@Value("${session-events.replay.capacity:256}") int capacity,
+                           @Value("${session-events.replay.max-sessions:10000}") long maxSessions,
+                           @Value("${session-events.replay.idle-ttl:PT1H}") Duration idleTtl) {
+        this.capacity = capacity;
+        this.logs = Caffeine.newBuilder()
+            .maximumSize(maxSessions)
+            .expireAfterAccess(idleTtl)
+            .build();
+    }
+    
+    /**
+     * Ring buffer of one session's latest events; guarded by its own monitor
+     */
+    private static final class SessionLog {
+        private final SequencedMessage[] events;
+        private final long firstSequence;
+        private long sequence;
+        
+        private SessionLog(int capacity) {
+            this.events = new SequencedMessage[capacity];
+            this.firstSequence = System.currentTimeMillis() * 1000;
+            this.sequence = firstSequence - 1;
+        }
+    }
+    
+    /**
+     * Number events in order, record them, and send them while still holding the session's log
+     * Sending under the log keeps broadcast order equal to sequence order, as long as the broker
+     * channel delivers on the sending thread (see WebSocketConfig); clients replay on a skipped sequence
+     */
+    public void append(UUID sessionId, List<? extends SequencedMessage> events, Runnable send) {
+        SessionLog log = logs.get(sessionId, id -> new SessionLog(capacity));
+        synchronized (log) {
+            for (SequencedMessage event : events) {
+                long sequence = ++log.sequence;
+                event.setSequence(sequence);
+                event.setOrigin(origin);
+                log.events[(int) Math.floorMod(sequence, (long) capacity)] = event;
+            }
+            send.run();
+        }
+    }
+    
+    /**
+     * Id stamped on the events this node numbers; changes on restart
+     */
+    public String origin() {
+        return origin;
+    }
+    
+    /**
+     * Latest sequence assigned in a session, or null if nothing was recorded
+     */
+    public Long currentSequence(UUID sessionId) {
+        SessionLog log = logs.getIfPresent(sessionId);
+        if (log == null) {
+            return null;
+        }
+        synchronized (log) {
+            return log.sequence >= log.firstSequence ? log.sequence : null;
+        }
+    }
+    
+    /**
+     * Events after the given sequence from the given origin, oldest first
+     * Empty if the origin is another node or an earlier run of this one, or the gap is no longer fully
+     * buffered (or the log was reset), in which case the client reloads
+     */
+    public Optional<List<SequencedMessage>> since(UUID sessionId, String lastOrigin, long lastSequence) {
+        SessionLog log = logs.getIfPresent(sessionId);
+        if (log == null || !origin.equals(lastOrigin)) {
+            return Optional.empty();
+        }
+        synchronized (log) {
+            long oldest = Math.max(log.firstSequence, log.sequence - capacity + 1);
+            if (lastSequence > log.sequence || lastSequence < oldest - 1) {
+                return Optional.empty();
+            }
+            List<SequencedMessage> missed = new ArrayList<>((int) (log.sequence - lastSequence));
+            for (long sequence = lastSequence + 1; sequence <= log.sequence; sequence++) {
+                missed.add(log.events[(int) Math.floorMod(sequence, (long) capacity)]);
+            }
+            return Optional.of(missed);
+        }
+    }
+    
+    /**
+     * Drop a session's log, e.g. once the session is deleted
+     */
+    public void remove(UUID sessionId) {
+        logs.invalidate(sessionId);
+    }
+}
\ No newline at end of file
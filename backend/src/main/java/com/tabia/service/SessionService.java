@@ -1,22 +1,25 @@
 package com.tabia.service;
 
 import com.tabia.dto.*;
+import com.tabia.exception.ConflictException;
 import com.tabia.exception.ResourceNotFoundException;
 import com.tabia.exception.UnauthorizedException;
 import com.tabia.model.Collaborator;
 import com.tabia.model.Session;
 import com.tabia.model.Tab;
-import com.tabia.model.User;
 import com.tabia.repository.CollaboratorRepository;
 import com.tabia.repository.SessionRepository;
 import com.tabia.repository.TabRepository;
-import com.tabia.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -34,14 +37,17 @@ public class SessionService {
     private final SessionRepository sessionRepository;
     private final TabRepository tabRepository;
     private final CollaboratorRepository collaboratorRepository;
-    private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
+    private final TabPositionAllocator tabPositionAllocator;
     
     public SessionService(SessionRepository sessionRepository, TabRepository tabRepository,
-                         CollaboratorRepository collaboratorRepository, UserRepository userRepository) {
+                         CollaboratorRepository collaboratorRepository, UserProfileCache userProfileCache,
+                         TabPositionAllocator tabPositionAllocator) {
         this.sessionRepository = sessionRepository;
         this.tabRepository = tabRepository;
         this.collaboratorRepository = collaboratorRepository;
-        this.userRepository = userRepository;
+        this.userProfileCache = userProfileCache;
+        this.tabPositionAllocator = tabPositionAllocator;
     }
     
     /**
@@ -62,6 +68,7 @@ public class SessionService {
                 tabDto.getWindowIndex()
             ))
             .collect(Collectors.toList());
+        assignOrderKeys(tabs);
         
         List<Tab> savedTabs = tabRepository.saveAll(tabs);
         
@@ -78,8 +85,12 @@ public class SessionService {
     public List<SessionResponse> getAllUserSessions(String userId) {
         List<Session> sessions = sessionRepository.findAllUserSessions(userId);
         
+        // Resolve all distinct owners in one cache lookup
+        Map<String, UserProfileCache.UserProfile> owners = userProfileCache.getAll(
+            sessions.stream().map(Session::getOwnerId).collect(Collectors.toSet()));
+        
         return sessions.stream()
-            .map(session -> convertToSessionResponse(session, userId))
+            .map(session -> convertToSessionResponse(session, userId, owners.get(session.getOwnerId())))
             .collect(Collectors.toList());
     }
     
@@ -107,6 +118,12 @@ public class SessionService {
             throw new UnauthorizedException("Only session owner can update session properties");
         }
         
+        // Reject updates based on a stale copy instead of silently overwriting
+        if (request.getExpectedVersion() != null && !request.getExpectedVersion().equals(session.getVersion())) {
+            throw new ConflictException("Session has been modified by another user",
+                                        convertToSessionResponse(session, userId));
+        }
+        
         // Update properties if provided
         if (request.getName() != null) {
             session.setName(request.getName());
@@ -115,7 +132,8 @@ public class SessionService {
             session.setIsStarred(request.getIsStarred());
         }
         
-        Session updatedSession = sessionRepository.save(session);
+        // Flush so the bumped version is visible in the response
+        Session updatedSession = sessionRepository.saveAndFlush(session);
         
         logger.info("Updated session {} for user: {}", sessionId, userId);
         return convertToSessionResponse(updatedSession, userId);
@@ -135,6 +153,7 @@ public class SessionService {
         }
         
         sessionRepository.delete(session);
+        tabPositionAllocator.invalidateSession(sessionId);
         
         logger.info("Deleted session {} by user: {}", sessionId, userId);
     }
@@ -162,8 +181,15 @@ public class SessionService {
      * Convert Session entity to SessionResponse DTO
      */
     private SessionResponse convertToSessionResponse(Session session, String currentUserId) {
-        User owner = userRepository.findById(session.getOwnerId()).orElse(null);
-        
+        return convertToSessionResponse(session, currentUserId, 
+                                        userProfileCache.get(session.getOwnerId()).orElse(null));
+    }
+    
+    /**
+     * Convert Session entity to SessionResponse DTO with an already resolved owner
+     */
+    private SessionResponse convertToSessionResponse(Session session, String currentUserId,
+                                                     UserProfileCache.UserProfile owner) {
         SessionResponse response = new SessionResponse(
             session.getId(),
             session.getName(),
@@ -176,10 +202,12 @@ public class SessionService {
             session.getCreatedAt(),
             session.getUpdatedAt()
         );
+        response.setVersion(session.getVersion());
         
         // Add tabs if loaded
         if (session.getTabs() != null) {
             List<TabResponse> tabResponses = session.getTabs().stream()
+                .sorted(TabOrderKeys.TAB_ORDER)
                 .map(this::convertToTabResponse)
                 .collect(Collectors.toList());
             response.setTabs(tabResponses);
@@ -193,11 +221,30 @@ public class SessionService {
         return response;
     }
     
+    /**
+     * Give new session tabs position keys spread evenly over each window, in tab index order
+     */
+    private void assignOrderKeys(List<Tab> tabs) {
+        Map<Integer, List<Tab>> windows = new HashMap<>();
+        tabs.stream()
+            .sorted(Comparator.comparing(Tab::getTabIndex, Comparator.nullsFirst(Comparator.naturalOrder())))
+            .forEach(tab -> windows.computeIfAbsent(tab.getWindowIndex(), k -> new ArrayList<>()).add(tab));
+        windows.values().forEach(window -> {
+            List<String> keys = TabOrderKeys.spread(null, null, window.size());
+            for (int i = 0; i < window.size(); i++) {
+                Tab tab = window.get(i);
+                tab.setOrderKey(keys.get(i));
+                tab.setOrderClock(0L);
+                tab.setOrderReplica("");
+            }
+        });
+    }
+    
     /**
      * Convert Tab entity to TabResponse DTO
      */
     private TabResponse convertToTabResponse(Tab tab) {
-        return new TabResponse(
+        TabResponse response = new TabResponse(
             tab.getId(),
             tab.getSessionId(),
             tab.getTitle(),
@@ -206,5 +253,10 @@ public class SessionService {
             tab.getWindowIndex(),
             tab.getCreatedAt()
         );
+        response.setVersion(tab.getVersion());
+        response.setOrderKey(tab.getOrderKey());
+        response.setOrderClock(tab.getOrderClock());
+        response.setOrderReplica(tab.getOrderReplica());
+        return response;
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.tabia.service;
+
+import com.tabia.model.Tab;
+import com.tabia.repository.TabRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One-off startup job that gives tabs created before position keys existed a key
+ * Legacy tabs sort ahead of the keyed tabs in their window, by tab index, so their keys are spread
+ * below the window's first keyed tab and clients see the same order. Keys are only written where
+ * still missing, so a concurrent move or another node running the same job is never overwritten
+ */
+@Component
+@ConditionalOnProperty(name = "tab-positions.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class TabOrderKeyBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(TabOrderKeyBackfill.class);
+
+    private final TabRepository tabRepository;
+    private final int batchSize;
+
+    public TabOrderKeyBackfill(TabRepository tabRepository,
+                               @Value("${tab-positions.backfill.batch-size:100}") int batchSize) {
+        this.tabRepository = tabRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Key the legacy tabs of every session, a batch of sessions at a time
+     * Stops once no session is left, or a batch assigns nothing (every key was set concurrently)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long assigned = 0;
+        List<UUID> sessionIds;
+        while (!(sessionIds = tabRepository.findSessionIdsWithoutOrderKeys(PageRequest.of(0, batchSize))).isEmpty()) {
+            int batchAssigned = 0;
+            for (UUID sessionId : sessionIds) {
+                batchAssigned += backfillSession(sessionId);
+            }
+            if (batchAssigned == 0) {
+                break;
+            }
+            assigned += batchAssigned;
+        }
+
+        if (assigned > 0) {
+            logger.info("Assigned position keys to {} tabs created before position keys existed", assigned);
+        }
+    }
+
+    int backfillSession(UUID sessionId) {
+        Map<Integer, List<Tab>> windows = new HashMap<>();
+        tabRepository.findBySessionIdOrderByWindowIndexAscTabIndexAsc(sessionId).stream()
+            .sorted(TabOrderKeys.TAB_ORDER)
+            .forEach(tab -> windows.computeIfAbsent(tab.getWindowIndex(), k -> new ArrayList<>()).add(tab));
+
+        int assigned = 0;
+        for (List<Tab> window : windows.values()) {
+            List<Tab> legacy = window.stream().filter(tab -> tab.getOrderKey() == null).toList();
+            if (legacy.isEmpty()) {
+                continue;
+            }
+            // Below the first keyed tab, or below the first key an empty window hands out
+            String upper = window.stream().map(Tab::getOrderKey).filter(key -> key != null)
+                .findFirst().orElse(TabOrderKeys.after(null));
+            List<String> keys = TabOrderKeys.spread(null, upper, legacy.size());
+            for (int i = 0; i < legacy.size(); i++) {
+                assigned += tabRepository.assignOrderKeyIfMissing(legacy.get(i).getId(), keys.get(i));
+            }
+        }
+        return assigned;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.tabia.service;
+
+import com.tabia.model.Tab;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.regex.Pattern;
+
+/**
+ * Dense, Logoot-style position keys for ordering tabs within a window
+ * Keys are base-36 digit strings compared lexicographically; a key can always be generated
+ * strictly between two others, so inserts and moves never renumber their neighbours.
+ * Generated keys end in a fixed-length tag of the site (node or client) that made them, so two
+ * sites inserting into the same gap at once still produce distinct keys. Equal keys, which only
+ * untagged keys from older clients can produce, are ordered by tab id
+ */
+public final class TabOrderKeys {
+    
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+    private static final int SITE_LENGTH = 6;
+    private static final RandomGenerator RANDOM = new SecureRandom();
+    
+    // Lowercase alphanumerics sort the same in Java and in database collations; a trailing
+    // zero digit would leave no room before the key
+    private static final Pattern VALID_KEY = Pattern.compile("[0-9a-z]*[1-9a-z]");
+    private static final Pattern VALID_REPLICA = Pattern.compile("[0-9a-z]{1,64}");
+    
+    /**
+     * Order of tabs in a session: window, then position key, then id
+     * Tabs created before position keys existed keep their tab index and sort ahead of keyed tabs
+     */
+    public static final Comparator<Tab> TAB_ORDER = Comparator
+        .comparing(Tab::getWindowIndex, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Tab::getOrderKey, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Tab::getTabIndex, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Tab::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+    
+    private TabOrderKeys() {
+    }
+    
+    /**
+     * Generate a key strictly between two keys, either of which may be null for an open end
+     */
+    public static String between(String lower, String upper) {
+        // The first key of an empty window sits in the middle, leaving room on both sides
+        return between(lower, upper, lower == null && upper == null);
+    }
+    
+    /**
+     * Generate count keys evenly spread between two keys, in order
+     * Bisecting the gap keeps every key within about log36(count) digits of its bounds, where
+     * repeated appends would grow by a digit every few dozen keys
+     */
+    public static List<String> spread(String lower, String upper, int count) {
+        List<String> keys = new ArrayList<>(count);
+        spread(lower, upper, count, keys);
+        return keys;
+    }
+    
+    private static void spread(String lower, String upper, int count, List<String> keys) {
+        if (count == 0) {
+            return;
+        }
+        String middle = between(lower, upper, true);
+        int below = (count - 1) / 2;
+        spread(lower, middle, below, keys);
+        keys.add(middle);
+        spread(middle, upper, count - 1 - below, keys);
+    }
+    
+    private static String between(String lower, String upper, boolean midpoint) {
+        if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+            throw new IllegalArgumentException("Lower position key must sort before upper key");
+        }
+        
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; ; i++) {
+            boolean lowerOpen = lower == null || i >= lower.length();
+            boolean upperOpen = upper == null || i >= upper.length();
+            int low = lowerOpen ? 0 : digit(lower.charAt(i));
+            int high = upperOpen ? BASE : digit(upper.charAt(i));
+            
+            if (high - low > 1) {
+                // Step by one at an open end so repeated appends or prepends keep keys short
+                int next = midpoint || !(lowerOpen || upperOpen) ? (low + high) / 2 : upperOpen ? low + 1 : high - 1;
+                key.append(DIGITS.charAt(next));
+                return key.toString();
+            }
+            key.append(DIGITS.charAt(low));
+            if (high - low == 1) {
+                // Prefix now sorts below upper whatever follows, only lower still bounds us
+                upper = null;
+            }
+        }
+    }
+    
+    /**
+     * Generate a key after the given one, or a first key when it is null
+     */
+    public static String after(String lower) {
+        return between(lower, null);
+    }
+    
+    /**
+     * Generate a site-tagged key strictly between two keys
+     * A generated key never prefixes the upper bound, so the tag keeps it below upper
+     */
+    public static String between(String lower, String upper, String site) {
+        return between(lower, upper) + site;
+    }
+    
+    /**
+     * Generate a site-tagged key after the given one
+     */
+    public static String after(String lower, String site) {
+        return between(lower, null, site);
+    }
+    
+    /**
+     * Random site tag; its last digit is never zero so tagged keys stay valid
+     */
+    public static String newSite() {
+        StringBuilder site = new StringBuilder(SITE_LENGTH);
+        for (int i = 0; i < SITE_LENGTH - 1; i++) {
+            site.append(DIGITS.charAt(RANDOM.nextInt(BASE)));
+        }
+        return site.append(DIGITS.charAt(1 + RANDOM.nextInt(BASE - 1))).toString();
+    }
+    
+    public static boolean isValid(String key) {
+        return key != null && key.length() <= 255 && VALID_KEY.matcher(key).matches();
+    }
+    
+    /**
+     * Replica IDs break clock ties in the database, so they are held to the same alphabet
+     */
+    public static boolean isValidReplica(String replicaId) {
+        return replicaId != null && VALID_REPLICA.matcher(replicaId).matches();
+    }
+    
+    private static int digit(char c) {
+        int digit = DIGITS.indexOf(c);
+        if (digit < 0) {
+            throw new IllegalArgumentException("Invalid position key character: " + c);
+        }
+        return digit;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.tabia.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tabia.repository.TabRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory allocator for tab positions within a session window
+ * Hands out append slots and append position keys from per-window atomic state so concurrent
+ * adds never share an index or key and never need an aggregate query once seeded
+ * State is local to a node and reseeds from the database after sitting idle; with several
+ * nodes, appends on different nodes can share an index until then, which ordering tolerates
+ * since tabs sort by position key and id first, and their keys still differ by the node's site tag
+ */
+@Component
+public class TabPositionAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TabPositionAllocator.class);
+
+    private final TabRepository tabRepository;
+
+    // Cache of sessionId -> Map of windowIndex -> highest allocated tab index
+    private final Cache<UUID, Map<Integer, AtomicInteger>> sessionCounters;
+
+    // Cache of sessionId -> Map of windowIndex -> highest position key known in the window
+    private final Cache<UUID, Map<Integer, AtomicReference<String>>> sessionOrderKeys;
+
+    // Tags the keys this node generates, so they never equal another site's keys
+    private final String site = TabOrderKeys.newSite();
+
+    public TabPositionAllocator(TabRepository tabRepository,
+                                @Value("${tab-positions.max-sessions:10000}") long maxSessions,
+                                @Value("${tab-positions.idle-ttl:PT10M}") Duration idleTtl) {
+        this.tabRepository = tabRepository;
+        this.sessionCounters = Caffeine.newBuilder()
+            .maximumSize(maxSessions)
+            .expireAfterAccess(idleTtl)
+            .build();
+        this.sessionOrderKeys = Caffeine.newBuilder()
+            .maximumSize(maxSessions)
+            .expireAfterAccess(idleTtl)
+            .build();
+    }
+
+    /**
+     * Reserve the next append position for a window
+     * The counter is seeded from the database on first use only
+     */
+    public int nextPosition(UUID sessionId, Integer windowIndex) {
+        return counterFor(sessionId, windowIndex).incrementAndGet();
+    }
+
+    /**
+     * Record a tab placed at an explicit position
+     * Keeps later appends after it if the window is already being tracked
+     */
+    public void observePosition(UUID sessionId, Integer windowIndex, Integer tabIndex) {
+        if (tabIndex == null) {
+            return;
+        }
+
+        Map<Integer, AtomicInteger> windowCounters = sessionCounters.getIfPresent(sessionId);
+        if (windowCounters != null) {
+            AtomicInteger counter = windowCounters.get(windowIndex);
+            if (counter != null) {
+                counter.accumulateAndGet(tabIndex, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Reserve the next append position key for a window, after every key seen in it
+     * The last key is seeded from the database on first use only
+     */
+    public String nextOrderKey(UUID sessionId, Integer windowIndex) {
+        return lastOrderKeyFor(sessionId, windowIndex).updateAndGet(last -> TabOrderKeys.after(last, site));
+    }
+
+    /**
+     * Record a tab placed at an explicit position key
+     * Keeps later appends after it if the window is already being tracked
+     */
+    public void observeOrderKey(UUID sessionId, Integer windowIndex, String orderKey) {
+        if (orderKey == null) {
+            return;
+        }
+
+        Map<Integer, AtomicReference<String>> windowKeys = sessionOrderKeys.getIfPresent(sessionId);
+        if (windowKeys != null) {
+            AtomicReference<String> lastKey = windowKeys.get(windowIndex);
+            if (lastKey != null) {
+                lastKey.accumulateAndGet(orderKey, (last, key) -> last == null || key.compareTo(last) > 0 ? key : last);
+            }
+        }
+    }
+
+    /**
+     * Drop all counters for a session (when session is deleted)
+     */
+    public void invalidateSession(UUID sessionId) {
+        boolean tracked = sessionCounters.asMap().remove(sessionId) != null;
+        tracked |= sessionOrderKeys.asMap().remove(sessionId) != null;
+        if (tracked) {
+            logger.debug("Invalidated tab position counters for session {}", sessionId);
+        }
+    }
+
+    /**
+     * Get the counter for a window, seeding it from the current maximum tab index
+     * Concurrent seeders may both query, but only one counter is ever published
+     */
+    private AtomicInteger counterFor(UUID sessionId, Integer windowIndex) {
+        Map<Integer, AtomicInteger> windowCounters =
+            sessionCounters.get(sessionId, k -> new ConcurrentHashMap<>());
+
+        AtomicInteger counter = windowCounters.get(windowIndex);
+        if (counter != null) {
+            return counter;
+        }
+
+        Integer maxIndex = tabRepository.findMaxTabIndexForWindow(sessionId, windowIndex);
+        AtomicInteger seeded = new AtomicInteger(maxIndex != null ? maxIndex : -1);
+        AtomicInteger existing = windowCounters.putIfAbsent(windowIndex, seeded);
+
+        return existing != null ? existing : seeded;
+    }
+
+    /**
+     * Get the last key of a window, seeding it from the current maximum position key
+     */
+    private AtomicReference<String> lastOrderKeyFor(UUID sessionId, Integer windowIndex) {
+        Map<Integer, AtomicReference<String>> windowKeys =
+            sessionOrderKeys.get(sessionId, k -> new ConcurrentHashMap<>());
+
+        AtomicReference<String> lastKey = windowKeys.get(windowIndex);
+        if (lastKey != null) {
+            return lastKey;
+        }
+
+        AtomicReference<String> seeded =
+            new AtomicReference<>(tabRepository.findMaxOrderKeyForWindow(sessionId, windowIndex).orElse(null));
+        AtomicReference<String> existing = windowKeys.putIfAbsent(windowIndex, seeded);
+
+        return existing != null ? existing : seeded;
+    }
+}
@@ -1,8 +1,11 @@
 package com.tabia.service;
 
 import com.tabia.dto.AddTabRequest;
+import com.tabia.dto.MoveTabRequest;
 import com.tabia.dto.TabResponse;
 import com.tabia.dto.UpdateTabRequest;
+import com.tabia.exception.BadRequestException;
+import com.tabia.exception.ConflictException;
 import com.tabia.exception.ResourceNotFoundException;
 import com.tabia.exception.UnauthorizedException;
 import com.tabia.model.Collaborator;
@@ -28,10 +31,13 @@ public class TabService {
     
     private final TabRepository tabRepository;
     private final SessionService sessionService;
+    private final TabPositionAllocator tabPositionAllocator;
     
-    public TabService(TabRepository tabRepository, SessionService sessionService) {
+    public TabService(TabRepository tabRepository, SessionService sessionService,
+                     TabPositionAllocator tabPositionAllocator) {
         this.tabRepository = tabRepository;
         this.sessionService = sessionService;
+        this.tabPositionAllocator = tabPositionAllocator;
     }
     
     /**
@@ -49,8 +55,19 @@ public class TabService {
         Integer tabIndex = request.getTabIndex();
         if (tabIndex == null) {
             // Add at the end of the window
-            Integer maxIndex = tabRepository.findMaxTabIndexForWindow(sessionId, request.getWindowIndex());
-            tabIndex = maxIndex + 1;
+            tabIndex = tabPositionAllocator.nextPosition(sessionId, request.getWindowIndex());
+        } else {
+            tabPositionAllocator.observePosition(sessionId, request.getWindowIndex(), tabIndex);
+        }
+        
+        // Use the client's position key so its optimistic insert stands, else append to the window
+        String orderKey = request.getOrderKey();
+        if (orderKey == null) {
+            orderKey = tabPositionAllocator.nextOrderKey(sessionId, request.getWindowIndex());
+        } else if (!TabOrderKeys.isValid(orderKey)) {
+            throw new BadRequestException("Invalid tab position key");
+        } else {
+            tabPositionAllocator.observeOrderKey(sessionId, request.getWindowIndex(), orderKey);
         }
         
         // Create the tab
@@ -61,6 +78,9 @@ public class TabService {
             tabIndex,
             request.getWindowIndex()
         );
+        tab.setOrderKey(orderKey);
+        tab.setOrderClock(0L);
+        tab.setOrderReplica("");
         
         Tab savedTab = tabRepository.save(tab);
         
@@ -84,6 +104,11 @@ public class TabService {
             throw new UnauthorizedException("Only editors can update tabs");
         }
         
+        // Reject updates based on a stale copy instead of silently overwriting
+        if (request.getExpectedVersion() != null && !request.getExpectedVersion().equals(tab.getVersion())) {
+            throw new ConflictException("Tab has been modified by another user", convertToTabResponse(tab));
+        }
+        
         // Update properties if provided
         if (request.getTitle() != null) {
             tab.setTitle(request.getTitle());
@@ -91,14 +116,21 @@ public class TabService {
         if (request.getUrl() != null) {
             tab.setUrl(request.getUrl());
         }
-        if (request.getTabIndex() != null) {
+        if (request.getTabIndex() != null && !request.getTabIndex().equals(tab.getTabIndex())) {
+            // Tabs sort by position key first, so a new index alone would not move a keyed tab
+            if (tab.getOrderKey() != null) {
+                throw new BadRequestException("Reorder tabs with a move; the tab index does not set their position");
+            }
             tab.setTabIndex(request.getTabIndex());
         }
         if (request.getWindowIndex() != null) {
             tab.setWindowIndex(request.getWindowIndex());
         }
         
-        Tab updatedTab = tabRepository.save(tab);
+        // Flush so the bumped version is visible in the response
+        Tab updatedTab = tabRepository.saveAndFlush(tab);
+        tabPositionAllocator.observePosition(updatedTab.getSessionId(), 
+                                             updatedTab.getWindowIndex(), updatedTab.getTabIndex());
         
         logger.info("Updated tab {} in session {} by user: {}", 
                    tabId, tab.getSessionId(), userId);
@@ -106,6 +138,41 @@ public class TabService {
         return convertToTabResponse(updatedTab);
     }
     
+    /**
+     * Move a tab to a new position key and window
+     * Moves apply in any order and converge: the one with the highest (clock, replica) stamp wins,
+     * so a dominated move is answered with the current tab instead of being applied
+     */
+    public TabResponse moveTab(String userId, UUID tabId, MoveTabRequest request) {
+        if (!TabOrderKeys.isValid(request.getOrderKey()) || !TabOrderKeys.isValidReplica(request.getReplicaId())) {
+            throw new BadRequestException("Invalid tab position key or replica ID");
+        }
+        
+        Tab tab = tabRepository.findByIdAndUserHasAccess(tabId, userId)
+            .orElseThrow(() -> new ResourceNotFoundException("Tab not found or access denied"));
+        
+        // Check if user has editor access
+        Optional<Collaborator.CollaboratorRole> userRole = sessionService.getUserRoleForSession(userId, tab.getSessionId());
+        if (userRole.isEmpty() || userRole.get() != Collaborator.CollaboratorRole.EDITOR) {
+            throw new UnauthorizedException("Only editors can move tabs");
+        }
+        
+        int applied = tabRepository.applyMove(tabId, request.getOrderKey(), request.getWindowIndex(),
+                                              request.getClock(), request.getReplicaId());
+        
+        Tab current = tabRepository.findById(tabId)
+            .orElseThrow(() -> new ResourceNotFoundException("Tab not found or access denied"));
+        if (applied == 0) {
+            throw new ConflictException("Tab has been moved by another user", convertToTabResponse(current));
+        }
+        tabPositionAllocator.observeOrderKey(current.getSessionId(), current.getWindowIndex(), current.getOrderKey());
+        
+        logger.info("Moved tab {} in session {} by user: {}", 
+                   tabId, tab.getSessionId(), userId);
+        
+        return convertToTabResponse(current);
+    }
+    
     /**
      * Delete a tab from a session
      * Only editors can delete tabs
@@ -130,7 +197,7 @@ public class TabService {
      * Convert Tab entity to TabResponse DTO
      */
     private TabResponse convertToTabResponse(Tab tab) {
-        return new TabResponse(
+        TabResponse response = new TabResponse(
             tab.getId(),
             tab.getSessionId(),
             tab.getTitle(),
@@ -139,5 +206,10 @@ public class TabService {
             tab.getWindowIndex(),
             tab.getCreatedAt()
         );
+        response.setVersion(tab.getVersion());
+        response.setOrderKey(tab.getOrderKey());
+        response.setOrderClock(tab.getOrderClock());
+        response.setOrderReplica(tab.getOrderReplica());
+        return response;
     }
 }
\ No newline at end of file
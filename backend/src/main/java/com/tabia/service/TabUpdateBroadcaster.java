@@ -0,0 +1,118 @@
+package com.tabia.service;
+
+import com.tabia.dto.websocket.TabUpdateBatchMessage;
+import com.tabia.dto.websocket.TabUpdateMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches tab updates per session before broadcasting them on /topic/session/{id}/tabs
+ * Updates published within the window after a session's first pending update go out
+ * as one TabUpdateBatchMessage; a lone update is sent as a plain TabUpdateMessage
+ */
+@Service
+public class TabUpdateBroadcaster {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TabUpdateBroadcaster.class);
+    
+    private final BroadcastPublisher broadcastPublisher;
+    private final SessionEventLog sessionEventLog;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    
+    // Updates waiting for the end of their session's window, in publish order
+    private final Map<UUID, List<TabUpdateMessage>> pending = new ConcurrentHashMap<>();
+    
+    public TabUpdateBroadcaster(BroadcastPublisher broadcastPublisher, SessionEventLog sessionEventLog,
+                                @Value("${tab-updates.batch.window:PT0.02S}") Duration window,
+                                @Value("${tab-updates.batch.max-size:200}") int maxBatchSize) {
+        this.broadcastPublisher = broadcastPublisher;
+        this.sessionEventLog = sessionEventLog;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = windowNanos > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tab-update-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    /**
+     * Queue a tab update for broadcast
+     * With a zero window the update is sent immediately on the calling thread
+     */
+    public void publish(TabUpdateMessage message) {
+        UUID sessionId = message.getSessionId();
+        if (scheduler == null) {
+            sessionEventLog.append(sessionId, List.of(message), () -> send(sessionId, List.of(message)));
+            return;
+        }
+        
+        boolean[] created = new boolean[1];
+        pending.compute(sessionId, (id, updates) -> {
+            if (updates == null) {
+                created[0] = true;
+                updates = new ArrayList<>();
+            }
+            updates.add(message);
+            return updates;
+        });
+        
+        if (created[0]) {
+            scheduler.schedule(() -> flush(sessionId), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Send everything pending for a session
+     * Removing the list first means an update racing with the flush starts a new window
+     */
+    void flush(UUID sessionId) {
+        List<TabUpdateMessage> updates = pending.remove(sessionId);
+        if (updates == null) {
+            return;
+        }
+        try {
+            sessionEventLog.append(sessionId, updates, () -> {
+                for (int from = 0; from < updates.size(); from += maxBatchSize) {
+                    send(sessionId, updates.subList(from, Math.min(from + maxBatchSize, updates.size())));
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to broadcast {} tab updates for session {}: {}", updates.size(), sessionId, e.getMessage());
+        }
+    }
+    
+    private void send(UUID sessionId, List<TabUpdateMessage> updates) {
+        String destination = "/topic/session/" + sessionId + "/tabs";
+        if (updates.size() == 1) {
+            // Never marked as superseding: every update holds a sequence number, and a dropped one is a gap
+            // the client can only close by replaying
+            broadcastPublisher.publish(destination, updates.get(0));
+        } else {
+            broadcastPublisher.publish(destination, new TabUpdateBatchMessage(sessionId, List.copyOf(updates)));
+        }
+        logger.debug("Broadcasted {} tab updates for session {}", updates.size(), sessionId);
+    }
+}
\ No newline at end of file
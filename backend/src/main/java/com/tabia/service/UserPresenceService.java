@@ -1,17 +1,29 @@
 package com.tabia.service;
 
 import com.tabia.dto.websocket.UserPresenceMessage;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for tracking user presence in sessions
@@ -23,170 +35,562 @@ public class UserPresenceService {
     private static final Logger logger = LoggerFactory.getLogger(UserPresenceService.class);
     
     private final SimpMessagingTemplate messagingTemplate;
+    private final long ttlMillis;
+    private final PresenceExpiryWheel expiryWheel;
+    private final PresenceBroadcastCoalescer broadcastCoalescer;
     
-    // Map of sessionId -> Map of userId -> UserPresenceInfo
-    private final Map<UUID, Map<String, UserPresenceInfo>> sessionPresence = new ConcurrentHashMap<>();
+    // Map of sessionId -> presence state of that session
+    private final Map<UUID, SessionPresence> sessionPresence = new ConcurrentHashMap<>();
     
-    public UserPresenceService(SimpMessagingTemplate messagingTemplate) {
+    // Reverse index of STOMP session id -> sessionIds joined over that connection, so disconnects only touch those sessions
+    private final Map<String, Set<UUID>> connectionSessions = new ConcurrentHashMap<>();
+    
+    // Changes not yet broadcast, sessionId -> userId -> joined entry, or null if the user left
+    private final Map<UUID, Map<String, UserPresenceInfo>> pendingChanges = new ConcurrentHashMap<>();
+    
+    // Version of the last presence delta broadcast for each session, dropped once nobody is present;
+    // a new counter starts at the current time in millis * 1000, or past the last retired version
+    // if that is higher, so a session's versions keep increasing
+    private final Map<UUID, AtomicLong> presenceVersions = new ConcurrentHashMap<>();
+    private final AtomicLong retiredVersionFloor = new AtomicLong();
+    
+    // Id stamped on this node's presence messages; every node numbers its own users' versions
+    private final String origin = UUID.randomUUID().toString();
+    
+    // Users connected to other nodes, sessionId -> origin -> latest state reported over the cluster bus;
+    // an origin that stops announcing (e.g. a crashed node) is dropped after three announce intervals
+    private final Map<UUID, Map<String, RemotePresence>> remotePresence = new ConcurrentHashMap<>();
+    private final boolean clustered;
+    private final long remoteStaleMillis;
+    
+    public UserPresenceService(SimpMessagingTemplate messagingTemplate,
+                               @Value("${presence.expiry.ttl:PT90S}") Duration ttl,
+                               @Value("${presence.expiry.tick:PT1S}") Duration tick,
+                               @Value("${presence.broadcast.window:PT0.25S}") Duration broadcastWindow,
+                               @Value("${presence.broadcast.max-delay:PT1S}") Duration broadcastMaxDelay,
+                               @Value("${cluster.event-bus.enabled:false}") boolean clustered,
+                               @Value("${presence.cluster.announce-interval:PT30S}") Duration announceInterval) {
         this.messagingTemplate = messagingTemplate;
+        this.clustered = clustered;
+        this.remoteStaleMillis = announceInterval.toMillis() * 3;
+        this.ttlMillis = ttl.toMillis();
+        this.expiryWheel = new PresenceExpiryWheel(tick, ttl, System.currentTimeMillis());
+        this.broadcastCoalescer = new PresenceBroadcastCoalescer(broadcastWindow, broadcastMaxDelay, this::broadcastPresenceDelta);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        broadcastCoalescer.shutdown();
     }
     
     /**
      * User information for presence tracking
+     * One entry per user and session, reference counted by the connections the user joined with
      */
     public static class UserPresenceInfo {
+        private final UUID sessionId;
         private final String userId;
         private final String userName;
         private final String userEmail;
-        private final LocalDateTime joinedAt;
-        private LocalDateTime lastSeen;
+        private final long joinedAtMillis;
+        private final UserPresenceMessage.UserInfo userInfo;
+        private final Set<String> connections = ConcurrentHashMap.newKeySet();
+        private volatile long lastSeenMillis;
         
-        public UserPresenceInfo(String userId, String userName, String userEmail) {
+        public UserPresenceInfo(UUID sessionId, String userId, String userName, String userEmail, long nowMillis) {
+            this.sessionId = sessionId;
             this.userId = userId;
             this.userName = userName;
             this.userEmail = userEmail;
-            this.joinedAt = LocalDateTime.now();
-            this.lastSeen = LocalDateTime.now();
+            this.joinedAtMillis = nowMillis;
+            this.lastSeenMillis = nowMillis;
+            // Built once per join and shared by every snapshot and delta that lists this user
+            this.userInfo = new UserPresenceMessage.UserInfo(userId, userName, userEmail, getJoinedAt());
         }
         
         // Getters
+        public UUID getSessionId() { return sessionId; }
         public String getUserId() { return userId; }
         public String getUserName() { return userName; }
         public String getUserEmail() { return userEmail; }
-        public LocalDateTime getJoinedAt() { return joinedAt; }
-        public LocalDateTime getLastSeen() { return lastSeen; }
+        public long getJoinedAtMillis() { return joinedAtMillis; }
+        public long getLastSeenMillis() { return lastSeenMillis; }
+        public UserPresenceMessage.UserInfo getUserInfo() { return userInfo; }
+        public int getConnectionCount() { return connections.size(); }
+        
+        public LocalDateTime getJoinedAt() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(joinedAtMillis), ZoneId.systemDefault());
+        }
         
-        public void updateLastSeen() {
-            this.lastSeen = LocalDateTime.now();
+        public void updateLastSeen(long nowMillis) {
+            this.lastSeenMillis = nowMillis;
         }
     }
     
     /**
-     * Add user to session presence
+     * Presence state of one session
+     * Membership is only mutated under the session's map entry, which then republishes an
+     * immutable snapshot; readers use the snapshot without locking or copying
      */
-    public void joinSession(UUID sessionId, String userId, String userName, String userEmail) {
-        sessionPresence.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>())
-                     .put(userId, new UserPresenceInfo(userId, userName, userEmail));
+    private static final class SessionPresence {
+        private final Map<String, UserPresenceInfo> users = new ConcurrentHashMap<>();
+        private volatile List<UserPresenceMessage.UserInfo> activeUsers = List.of();
+        private volatile UserPresenceMessage snapshotMessage;
         
-        logger.debug("User {} joined session {}", userName, sessionId);
-        
-        // Broadcast user joined message
-        UserPresenceMessage message = new UserPresenceMessage(
-            UserPresenceMessage.PresenceType.USER_JOINED,
-            sessionId, userId, userName, userEmail
-        );
-        message.setActiveUsers(getActiveUsersForSession(sessionId));
-        
-        messagingTemplate.convertAndSend("/topic/session/" + sessionId + "/presence", message);
+        private void publishSnapshot() {
+            activeUsers = users.values().stream().map(UserPresenceInfo::getUserInfo).toList();
+        }
     }
     
     /**
-     * Remove user from session presence
+     * Users another node reported for a session, as of that node's presence version
      */
-    public void leaveSession(UUID sessionId, String userId) {
-        Map<String, UserPresenceInfo> sessionUsers = sessionPresence.get(sessionId);
-        if (sessionUsers == null) {
+    private record RemotePresence(long version, Map<String, UserPresenceMessage.UserInfo> users, long receivedAtMillis) {
+    }
+    
+    /**
+     * Add user to session presence over a connection
+     * Only the first connection of a user announces a join, later ones just add a reference
+     */
+    public void joinSession(UUID sessionId, String connectionId, String userId, String userName, String userEmail) {
+        long now = System.currentTimeMillis();
+        UserPresenceInfo[] joined = new UserPresenceInfo[1];
+        
+        // Both maps are updated under the connection's reverse-index entry so concurrent join/leave stay in step
+        connectionSessions.compute(connectionId, (conn, sessions) -> {
+            Set<UUID> joinedSessions = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            sessionPresence.compute(sessionId, (id, presence) -> {
+                SessionPresence updated = presence != null ? presence : new SessionPresence();
+                UserPresenceInfo existing = updated.users.get(userId);
+                if (existing != null) {
+                    existing.connections.add(connectionId);
+                    existing.updateLastSeen(now);
+                    return updated;
+                }
+                
+                UserPresenceInfo info = new UserPresenceInfo(sessionId, userId, userName, userEmail, now);
+                info.connections.add(connectionId);
+                updated.users.put(userId, info);
+                updated.publishSnapshot();
+                recordChange(sessionId, userId, info);
+                joined[0] = info;
+                return updated;
+            });
+            joinedSessions.add(sessionId);
+            return joinedSessions;
+        });
+        
+        UserPresenceInfo info = joined[0];
+        if (info == null) {
+            logger.debug("User {} opened another connection to session {}", userName, sessionId);
             return;
         }
+        expiryWheel.schedule(info, info.getLastSeenMillis() + ttlMillis);
+        
+        logger.debug("User {} joined session {}", userName, sessionId);
+        broadcastCoalescer.markDirty(sessionId);
+    }
+    
+    /**
+     * Remove a connection from session presence
+     * The user only leaves once their last connection to the session is gone
+     */
+    public void leaveSession(UUID sessionId, String connectionId, String userId) {
+        UserPresenceInfo[] removed = new UserPresenceInfo[1];
+        connectionSessions.computeIfPresent(connectionId, (conn, sessions) -> {
+            removed[0] = releaseConnection(sessionId, connectionId, userId);
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
         
-        UserPresenceInfo userInfo = sessionUsers.remove(userId);
+        UserPresenceInfo userInfo = removed[0];
         if (userInfo == null) {
             return;
         }
         
-        // Clean up empty session maps
-        if (sessionUsers.isEmpty()) {
-            sessionPresence.remove(sessionId);
-        }
-        
         logger.debug("User {} left session {}", userInfo.getUserName(), sessionId);
-        
-        // Broadcast user left message
-        UserPresenceMessage message = new UserPresenceMessage(
-            UserPresenceMessage.PresenceType.USER_LEFT,
-            sessionId, userId, userInfo.getUserName(), userInfo.getUserEmail()
-        );
-        message.setActiveUsers(getActiveUsersForSession(sessionId));
-        
-        messagingTemplate.convertAndSend("/topic/session/" + sessionId + "/presence", message);
+        broadcastCoalescer.markDirty(sessionId);
     }
     
     /**
      * Update user's last seen timestamp
+     * Only writes a primitive timestamp; the expiry wheel re-reads it when the entry comes due.
+     * Returns false if the user is not present, e.g. expired while the connection stayed open
      */
-    public void updateUserActivity(UUID sessionId, String userId) {
-        Map<String, UserPresenceInfo> sessionUsers = sessionPresence.get(sessionId);
-        if (sessionUsers != null) {
-            UserPresenceInfo userInfo = sessionUsers.get(userId);
+    public boolean updateUserActivity(UUID sessionId, String userId) {
+        SessionPresence presence = sessionPresence.get(sessionId);
+        if (presence != null) {
+            UserPresenceInfo userInfo = presence.users.get(userId);
             if (userInfo != null) {
-                userInfo.updateLastSeen();
+                userInfo.updateLastSeen(System.currentTimeMillis());
+                return true;
             }
         }
+        return false;
     }
     
     /**
      * Get list of active users for a session
+     * Returns the published immutable snapshot, nothing is copied per call
      */
     public List<UserPresenceMessage.UserInfo> getActiveUsersForSession(UUID sessionId) {
-        Map<String, UserPresenceInfo> sessionUsers = sessionPresence.get(sessionId);
-        if (sessionUsers == null) {
-            return List.of();
+        SessionPresence presence = sessionPresence.get(sessionId);
+        return presence != null ? presence.activeUsers : List.of();
+    }
+    
+    /**
+     * Get the full presence snapshot for a session, tagged with the current presence version
+     * Sent to new subscribers and to clients that detected a gap in delta versions; lists the users
+     * of every node with that node's version, and all of them merged in activeUsers
+     */
+    public UserPresenceMessage getPresenceSnapshot(UUID sessionId) {
+        // Read the version before the users so every later delta applies cleanly on top of the snapshot;
+        // with users present but no counter yet, start it now so the next delta follows this version
+        AtomicLong version = presenceVersions.get(sessionId);
+        if (version == null && (sessionPresence.containsKey(sessionId) || pendingChanges.containsKey(sessionId))) {
+            version = presenceVersions.computeIfAbsent(sessionId, k -> newVersionCounter());
+        }
+        long currentVersion = version != null ? version.get() : newVersionCounter().get();
+        
+        SessionPresence presence = sessionPresence.get(sessionId);
+        List<UserPresenceMessage.UserInfo> activeUsers = presence != null ? presence.activeUsers : List.of();
+        List<UserPresenceMessage.OriginPresence> remote = remoteOrigins(sessionId, System.currentTimeMillis());
+        
+        // Reuse the last snapshot message while neither membership nor version has moved
+        UserPresenceMessage cached = presence != null ? presence.snapshotMessage : null;
+        if (remote.isEmpty() && cached != null && cached.getActiveUsers() == activeUsers
+                && cached.getVersion() == currentVersion) {
+            return cached;
+        }
+        
+        List<UserPresenceMessage.OriginPresence> origins = new ArrayList<>();
+        origins.add(new UserPresenceMessage.OriginPresence(origin, currentVersion, activeUsers));
+        origins.addAll(remote);
+        
+        UserPresenceMessage message = new UserPresenceMessage();
+        message.setType(UserPresenceMessage.PresenceType.PRESENCE_SNAPSHOT);
+        message.setSessionId(sessionId);
+        message.setOrigin(origin);
+        message.setVersion(currentVersion);
+        message.setOrigins(origins);
+        message.setActiveUsers(remote.isEmpty() ? activeUsers : mergeUsers(origins));
+        if (presence != null && remote.isEmpty()) {
+            presence.snapshotMessage = message;
+        }
+        return message;
+    }
+    
+    /**
+     * Track presence another node broadcast over the cluster bus, so this node's snapshots list its users
+     * Deltas apply on top of the known state (a missed one is corrected by the next announcement);
+     * snapshots and announcements replace it
+     */
+    public void applyRemotePresence(UserPresenceMessage message) {
+        String remoteOrigin = message.getOrigin();
+        Long version = message.getVersion();
+        if (remoteOrigin == null || remoteOrigin.equals(origin) || version == null || message.getSessionId() == null) {
+            return;
+        }
+        
+        boolean snapshot = message.getType() == UserPresenceMessage.PresenceType.PRESENCE_SNAPSHOT;
+        long nowMillis = System.currentTimeMillis();
+        remotePresence.computeIfAbsent(message.getSessionId(), k -> new ConcurrentHashMap<>())
+            .compute(remoteOrigin, (o, known) -> {
+                if (known != null && (version < known.version() || (!snapshot && version == known.version()))) {
+                    return known;
+                }
+                Map<String, UserPresenceMessage.UserInfo> users = new LinkedHashMap<>();
+                if (snapshot) {
+                    Optional.ofNullable(message.getActiveUsers()).orElse(List.of())
+                        .forEach(user -> users.put(user.getUserId(), user));
+                } else {
+                    if (known != null) {
+                        users.putAll(known.users());
+                    }
+                    Optional.ofNullable(message.getLeft()).orElse(List.of()).forEach(users::remove);
+                    Optional.ofNullable(message.getJoined()).orElse(List.of())
+                        .forEach(user -> users.put(user.getUserId(), user));
+                }
+                return new RemotePresence(version, users, nowMillis);
+            });
+    }
+    
+    /**
+     * Re-announce this node's users in every session it tracks, so other nodes learn about them
+     * after starting and drop them once this node stops announcing
+     */
+    @Scheduled(fixedDelayString = "${presence.cluster.announce-interval:PT30S}")
+    public void announcePresence() {
+        if (clustered) {
+            announcePresence(System.currentTimeMillis());
         }
+    }
+    
+    void announcePresence(long nowMillis) {
+        remotePresence.values().forEach(origins ->
+            origins.values().removeIf(remote -> nowMillis - remote.receivedAtMillis() > remoteStaleMillis));
+        remotePresence.values().removeIf(Map::isEmpty);
         
-        return sessionUsers.values().stream()
-                .map(info -> new UserPresenceMessage.UserInfo(
-                    info.getUserId(),
-                    info.getUserName(),
-                    info.getUserEmail(),
-                    info.getJoinedAt()
-                ))
-                .collect(Collectors.toList());
+        for (UUID sessionId : sessionPresence.keySet()) {
+            AtomicLong version = presenceVersions.get(sessionId);
+            if (version == null) {
+                continue;
+            }
+            // Under the counter's lock, like deltas, so the announcement keeps its place in version order
+            synchronized (version) {
+                SessionPresence presence = sessionPresence.get(sessionId);
+                if (presenceVersions.get(sessionId) != version || presence == null) {
+                    continue;
+                }
+                UserPresenceMessage message = new UserPresenceMessage();
+                message.setType(UserPresenceMessage.PresenceType.PRESENCE_SNAPSHOT);
+                message.setSessionId(sessionId);
+                message.setOrigin(origin);
+                message.setVersion(version.get());
+                message.setActiveUsers(presence.activeUsers);
+                // Each announcement holds the full state, so a lagging client only needs the newest
+                messagingTemplate.convertAndSend("/topic/session/" + sessionId + "/presence", message,
+                    Map.of(BroadcastPublisher.SUPERSEDE_KEY_HEADER, "presence:" + sessionId + ":" + origin));
+            }
+        }
+    }
+    
+    private List<UserPresenceMessage.OriginPresence> remoteOrigins(UUID sessionId, long nowMillis) {
+        Map<String, RemotePresence> origins = remotePresence.get(sessionId);
+        if (origins == null) {
+            return List.of();
+        }
+        List<UserPresenceMessage.OriginPresence> remote = new ArrayList<>();
+        origins.forEach((remoteOrigin, state) -> {
+            if (nowMillis - state.receivedAtMillis() <= remoteStaleMillis) {
+                remote.add(new UserPresenceMessage.OriginPresence(remoteOrigin, state.version(),
+                                                                  List.copyOf(state.users().values())));
+            }
+        });
+        return remote;
+    }
+    
+    /**
+     * Users of all origins, once each; a user connected to two nodes is listed once
+     */
+    private static List<UserPresenceMessage.UserInfo> mergeUsers(List<UserPresenceMessage.OriginPresence> origins) {
+        Map<String, UserPresenceMessage.UserInfo> users = new LinkedHashMap<>();
+        origins.forEach(presence -> presence.getActiveUsers().forEach(user -> users.putIfAbsent(user.getUserId(), user)));
+        return List.copyOf(users.values());
     }
     
     /**
      * Check if user is currently in session
      */
     public boolean isUserInSession(UUID sessionId, String userId) {
-        Map<String, UserPresenceInfo> sessionUsers = sessionPresence.get(sessionId);
-        return sessionUsers != null && sessionUsers.containsKey(userId);
+        SessionPresence presence = sessionPresence.get(sessionId);
+        return presence != null && presence.users.containsKey(userId);
     }
     
     /**
      * Get count of active users in session
      */
     public int getActiveUserCount(UUID sessionId) {
-        Map<String, UserPresenceInfo> sessionUsers = sessionPresence.get(sessionId);
-        return sessionUsers != null ? sessionUsers.size() : 0;
+        SessionPresence presence = sessionPresence.get(sessionId);
+        return presence != null ? presence.activeUsers.size() : 0;
     }
     
     /**
      * Remove all users from a session (when session is deleted)
      */
     public void clearSessionPresence(UUID sessionId) {
-        sessionPresence.remove(sessionId);
+        SessionPresence presence = sessionPresence.remove(sessionId);
+        pendingChanges.remove(sessionId);
+        presenceVersions.remove(sessionId);
+        remotePresence.remove(sessionId);
+        if (presence != null) {
+            presence.users.values().forEach(this::forgetConnections);
+        }
         logger.debug("Cleared presence for session {}", sessionId);
     }
     
     /**
-     * Remove user from all sessions (when user disconnects)
+     * Release a closed connection from every session it joined (when a socket disconnects)
+     * Only visits the sessions recorded for the connection in the reverse index, and users
+     * only leave the sessions where this was their last connection
      */
-    public void removeUserFromAllSessions(String userId) {
-        sessionPresence.forEach((sessionId, users) -> {
-            if (users.remove(userId) != null) {
-                logger.debug("Removed user {} from session {} due to disconnect", userId, sessionId);
+    public void removeConnection(String connectionId, String userId) {
+        Set<UUID> left = new HashSet<>();
+        connectionSessions.computeIfPresent(connectionId, (conn, sessions) -> {
+            for (UUID sessionId : sessions) {
+                if (releaseConnection(sessionId, connectionId, userId) != null) {
+                    left.add(sessionId);
+                }
+            }
+            return null;
+        });
+        
+        left.forEach(sessionId -> {
+            logger.debug("Removed user {} from session {} due to disconnect", userId, sessionId);
+            broadcastCoalescer.markDirty(sessionId);
+        });
+    }
+    
+    /**
+     * Advance the expiry wheel, dropping users whose last heartbeat is older than the TTL
+     */
+    @Scheduled(fixedRateString = "${presence.expiry.tick:PT1S}")
+    public void expireIdleUsers() {
+        expireIdleUsers(System.currentTimeMillis());
+    }
+    
+    /**
+     * Expire idle users as of the given time
+     * Removals are grouped per session and announced with a single presence update each
+     */
+    void expireIdleUsers(long nowMillis) {
+        Map<UUID, List<UserPresenceInfo>> expired = new HashMap<>();
+        
+        for (UserPresenceInfo info : expiryWheel.advance(nowMillis)) {
+            if (!isCurrent(info)) {
+                // User left or rejoined since this entry was scheduled
+                continue;
+            }
+            long deadline = info.getLastSeenMillis() + ttlMillis;
+            if (deadline > nowMillis) {
+                expiryWheel.schedule(info, deadline);
+            } else if (expirePresence(info)) {
+                expired.computeIfAbsent(info.getSessionId(), k -> new ArrayList<>()).add(info);
+            }
+        }
+        
+        expired.forEach((sessionId, users) -> {
+            logger.debug("Expired {} idle users from session {}", users.size(), sessionId);
+            broadcastCoalescer.markDirty(sessionId);
+        });
+    }
+    
+    private boolean isCurrent(UserPresenceInfo info) {
+        SessionPresence presence = sessionPresence.get(info.getSessionId());
+        return presence != null && presence.users.get(info.getUserId()) == info;
+    }
+    
+    /**
+     * Remove exactly this presence entry regardless of its open connections
+     */
+    private boolean expirePresence(UserPresenceInfo info) {
+        boolean[] removed = new boolean[1];
+        sessionPresence.computeIfPresent(info.getSessionId(), (id, presence) -> {
+            removed[0] = presence.users.remove(info.getUserId(), info);
+            if (removed[0]) {
+                recordChange(info.getSessionId(), info.getUserId(), null);
+            }
+            return afterRemoval(presence, removed[0]);
+        });
+        
+        // Done outside the session entry, joins lock the connection entry first
+        if (removed[0]) {
+            forgetConnections(info);
+        }
+        return removed[0];
+    }
+    
+    private void forgetConnections(UserPresenceInfo info) {
+        info.connections.forEach(connectionId -> connectionSessions.computeIfPresent(connectionId, (conn, sessions) -> {
+            sessions.remove(info.getSessionId());
+            return sessions.isEmpty() ? null : sessions;
+        }));
+    }
+    
+    /**
+     * Drop one connection's reference to a user's session entry
+     * Returns the entry if that was the last connection and the user left, otherwise null
+     */
+    private UserPresenceInfo releaseConnection(UUID sessionId, String connectionId, String userId) {
+        UserPresenceInfo[] removed = new UserPresenceInfo[1];
+        sessionPresence.computeIfPresent(sessionId, (id, presence) -> {
+            UserPresenceInfo info = presence.users.get(userId);
+            if (info == null || !info.connections.remove(connectionId) || !info.connections.isEmpty()) {
+                return presence;
+            }
+            presence.users.remove(userId);
+            recordChange(sessionId, userId, null);
+            removed[0] = info;
+            return afterRemoval(presence, true);
+        });
+        return removed[0];
+    }
+    
+    private static SessionPresence afterRemoval(SessionPresence presence, boolean removed) {
+        if (presence.users.isEmpty()) {
+            return null;
+        }
+        if (removed) {
+            presence.publishSnapshot();
+        }
+        return presence;
+    }
+    
+    /**
+     * Queue a join (entry) or leave (null) for the next delta, the latest change per user wins
+     * Always called under the session's map entry, so per-user changes are recorded in order
+     */
+    private void recordChange(UUID sessionId, String userId, UserPresenceInfo joined) {
+        pendingChanges.compute(sessionId, (id, changes) -> {
+            Map<String, UserPresenceInfo> pending = changes != null ? changes : new LinkedHashMap<>();
+            pending.put(userId, joined);
+            return pending;
+        });
+    }
+    
+    /**
+     * Broadcast the changes queued for a session as one delta with the next presence version
+     * Invoked by the coalescer once per burst of join/leave changes
+     */
+    private void broadcastPresenceDelta(UUID sessionId) {
+        while (true) {
+            AtomicLong version = presenceVersions.computeIfAbsent(sessionId, k -> newVersionCounter());
+            
+            // Drain, number and send under one lock so deltas reach the broker in version order
+            synchronized (version) {
+                if (presenceVersions.get(sessionId) != version) {
+                    // Retired while we waited, number with the new counter
+                    continue;
+                }
                 
-                // Broadcast user left message
-                UserPresenceMessage message = new UserPresenceMessage(
-                    UserPresenceMessage.PresenceType.USER_LEFT,
-                    sessionId, userId, "", ""
-                );
-                message.setActiveUsers(getActiveUsersForSession(sessionId));
+                Map<String, UserPresenceInfo> changes = pendingChanges.remove(sessionId);
+                if (changes != null && !changes.isEmpty()) {
+                    sendPresenceDelta(sessionId, version.incrementAndGet(), changes);
+                }
                 
-                messagingTemplate.convertAndSend("/topic/session/" + sessionId + "/presence", message);
+                // Retire the counter once the session is empty; a later join starts a new, higher one
+                if (!sessionPresence.containsKey(sessionId) && !pendingChanges.containsKey(sessionId)) {
+                    retiredVersionFloor.accumulateAndGet(version.get(), Math::max);
+                    presenceVersions.remove(sessionId, version);
+                }
+                return;
+            }
+        }
+    }
+    
+    private AtomicLong newVersionCounter() {
+        return new AtomicLong(Math.max(System.currentTimeMillis() * 1000, retiredVersionFloor.get()));
+    }
+    
+    private void sendPresenceDelta(UUID sessionId, long version, Map<String, UserPresenceInfo> changes) {
+        List<UserPresenceMessage.UserInfo> joined = new ArrayList<>();
+        List<String> left = new ArrayList<>();
+        changes.forEach((userId, info) -> {
+            if (info != null) {
+                joined.add(info.getUserInfo());
+            } else {
+                left.add(userId);
             }
         });
         
-        // Clean up empty session maps
-        sessionPresence.entrySet().removeIf(entry -> entry.getValue().isEmpty());
+        UserPresenceMessage message = new UserPresenceMessage();
+        message.setType(UserPresenceMessage.PresenceType.PRESENCE_DELTA);
+        message.setSessionId(sessionId);
+        message.setOrigin(origin);
+        message.setVersion(version);
+        message.setJoined(joined);
+        message.setLeft(left);
+        
+        messagingTemplate.convertAndSend("/topic/session/" + sessionId + "/presence", message);
     }
-}
+}
\ No newline at end of file
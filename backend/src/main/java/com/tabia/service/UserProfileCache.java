@@ -0,0 +1,113 @@
+package com.tabia.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.tabia.model.User;
+import com.tabia.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bounded read-through cache of user profile snapshots keyed by Firebase UID
+ * Serves owner/creator/collaborator names for DTO assembly without a query per lookup
+ */
+@Component
+public class UserProfileCache {
+
+    private final LoadingCache<String, UserProfile> profiles;
+
+    public UserProfileCache(UserRepository userRepository,
+                            @Value("${user-profile-cache.max-size:10000}") long maxSize,
+                            @Value("${user-profile-cache.ttl:PT10M}") Duration ttl) {
+        this.profiles = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build(new CacheLoader<>() {
+                @Override
+                public UserProfile load(String uid) {
+                    return userRepository.findById(uid).map(UserProfile::of).orElse(null);
+                }
+
+                @Override
+                public Map<String, UserProfile> loadAll(Set<? extends String> uids) {
+                    Map<String, UserProfile> loaded = new HashMap<>();
+                    userRepository.findAllById(Set.copyOf(uids))
+                        .forEach(user -> loaded.put(user.getUid(), UserProfile.of(user)));
+                    return loaded;
+                }
+            });
+    }
+
+    /**
+     * Immutable snapshot of the profile fields shown to other users
+     */
+    public static final class UserProfile {
+        private final String uid;
+        private final String email;
+        private final String name;
+        private final String photoUrl;
+
+        public UserProfile(String uid, String email, String name, String photoUrl) {
+            this.uid = uid;
+            this.email = email;
+            this.name = name;
+            this.photoUrl = photoUrl;
+        }
+
+        static UserProfile of(User user) {
+            return new UserProfile(user.getUid(), user.getEmail(), user.getName(), user.getPhotoUrl());
+        }
+
+        // Getters
+        public String getUid() { return uid; }
+        public String getEmail() { return email; }
+        public String getName() { return name; }
+        public String getPhotoUrl() { return photoUrl; }
+    }
+
+    /**
+     * Get a user's profile, loading it on a miss
+     */
+    public Optional<UserProfile> get(String uid) {
+        if (uid == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(profiles.get(uid));
+    }
+
+    /**
+     * Get profiles for many users, loading all misses in a single query
+     * Unknown users are absent from the returned map
+     */
+    public Map<String, UserProfile> getAll(Collection<String> uids) {
+        return profiles.getAll(uids);
+    }
+
+    /**
+     * Refresh a profile once the transaction that wrote it commits
+     * A rolled-back write never reaches the cache; outside a transaction the profile is stored at once
+     */
+    public void putAfterCommit(User user) {
+        UserProfile profile = UserProfile.of(user);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            profiles.put(profile.getUid(), profile);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                profiles.put(profile.getUid(), profile);
+            }
+        });
+    }
+}
@@ -19,9 +19,11 @@ public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     
     private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
     
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserProfileCache userProfileCache) {
         this.userRepository = userRepository;
+        this.userProfileCache = userProfileCache;
     }
     
     /**
@@ -38,12 +40,16 @@ public class UserService {
             user.setName(name);
             user.setPhotoUrl(photoUrl);
             
+            User savedUser = userRepository.save(user);
+            userProfileCache.putAfterCommit(savedUser);
+            
             logger.debug("Updated user: {} ({})", name, email);
-            return userRepository.save(user);
+            return savedUser;
         } else {
             // Create new user
             User newUser = new User(uid, email, name, photoUrl);
             User savedUser = userRepository.save(newUser);
+            userProfileCache.putAfterCommit(savedUser);
             
             logger.info("Created new user: {} ({})", name, email);
             return savedUser;
@@ -0,0 +1,130 @@
+package com.tabia.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tabia.dto.TabResponse;
+import com.tabia.dto.websocket.TabUpdateBatchMessage;
+import com.tabia.dto.websocket.TabUpdateMessage;
+import com.tabia.service.BroadcastPublisher;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * CPU cost of broadcasting one tab update batch to 1, 10 and 100 subscribers
+ * Compares encoding JSON per subscriber, convertAndSend with the Jackson converter,
+ * and BroadcastPublisher; each subscriber's STOMP frame is encoded in all three
+ *
+ * Run with: mvn test-compile, then java -cp target/classes:target/test-classes:{deps}
+ * com.tabia.benchmark.BroadcastFanOutBenchmark
+ */
+public class BroadcastFanOutBenchmark {
+    
+    private static final String DESTINATION = "/topic/session/benchmark/tabs";
+    private static final int[] SUBSCRIBERS = {1, 10, 100};
+    private static final int FANOUT_BUDGET = 400_000;
+    
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    
+    public static void main(String[] args) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        TabUpdateBatchMessage event = sampleEvent();
+        
+        System.out.printf("%-12s %-28s %14s %14s%n", "subscribers", "path", "cpu ns/fan-out", "json encodes");
+        for (int subscribers : SUBSCRIBERS) {
+            FanOutChannel channel = new FanOutChannel(subscribers);
+            
+            SimpMessagingTemplate converterTemplate = new SimpMessagingTemplate(channel);
+            MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+            converter.setObjectMapper(objectMapper);
+            converterTemplate.setMessageConverter(converter);
+            
+            BroadcastPublisher publisher = new BroadcastPublisher(new SimpMessagingTemplate(channel), objectMapper);
+            
+            run(subscribers, "encode per subscriber", subscribers, () -> {
+                for (int i = 0; i < subscribers; i++) {
+                    try {
+                        channel.encodeFrame(i, objectMapper.writeValueAsBytes(event));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            run(subscribers, "convertAndSend", 1, () -> converterTemplate.convertAndSend(DESTINATION, event));
+            run(subscribers, "BroadcastPublisher", 1, () -> publisher.publish(DESTINATION, event));
+        }
+    }
+    
+    private static void run(int subscribers, String path, int encodes, Runnable fanOut) {
+        int iterations = Math.max(1_000, FANOUT_BUDGET / subscribers);
+        for (int i = 0; i < iterations; i++) {
+            fanOut.run();
+        }
+        
+        long start = THREADS.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            fanOut.run();
+        }
+        long perFanOut = (THREADS.getCurrentThreadCpuTime() - start) / iterations;
+        
+        System.out.printf("%-12d %-28s %14d %14d%n", subscribers, path, perFanOut, encodes);
+    }
+    
+    private static TabUpdateBatchMessage sampleEvent() {
+        UUID sessionId = UUID.randomUUID();
+        List<TabUpdateMessage> updates = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TabResponse tab = new TabResponse();
+            tab.setId(UUID.randomUUID());
+            tab.setSessionId(sessionId);
+            tab.setTitle("Benchmark tab " + i);
+            tab.setUrl("https://example.com/articles/" + i + "?utm_source=benchmark");
+            updates.add(new TabUpdateMessage(TabUpdateMessage.UpdateType.TAB_ADDED, sessionId, tab, "user-1", "User One"));
+        }
+        return new TabUpdateBatchMessage(sessionId, updates);
+    }
+    
+    /**
+     * Stands in for the simple broker plus STOMP sub-protocol: one frame per subscriber sharing the payload
+     */
+    private static final class FanOutChannel implements MessageChannel {
+        
+        private final int subscribers;
+        private final StompEncoder encoder = new StompEncoder();
+        private long sink;
+        
+        FanOutChannel(int subscribers) {
+            this.subscribers = subscribers;
+        }
+        
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            byte[] payload = (byte[]) message.getPayload();
+            for (int i = 0; i < subscribers; i++) {
+                encodeFrame(i, payload);
+            }
+            return true;
+        }
+        
+        void encodeFrame(int subscriber, byte[] payload) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setSubscriptionId("sub-" + subscriber);
+            accessor.setMessageId(String.valueOf(subscriber));
+            accessor.setDestination(DESTINATION);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            sink += encoder.encode(MessageBuilder.createMessage(payload, accessor.getMessageHeaders())).length;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package com.tabia.config;
+
+import com.tabia.service.BroadcastPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ClientOutboundExecutor
+ */
+class ClientOutboundExecutorTest {
+
+    private ClientOutboundExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ClientOutboundExecutor(new SimpleMeterRegistry(), "websocket.outbound", Duration.ofSeconds(10), 5);
+        executor.setCorePoolSize(2);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_ShouldCoalesceSupersededMessages_WhileClientLags() throws InterruptedException {
+        // Given
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        executor.execute(task("conn-1", "/user/queue/errors", null, () -> {
+            await(stalled);
+            sent.add("first");
+            done.countDown();
+        }));
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            String label = "announcement-" + i;
+            executor.execute(task("conn-1", "/topic/session/s1/presence", "presence:s1:node-a",
+                                  () -> { sent.add(label); done.countDown(); }));
+        }
+        executor.execute(task("conn-1", "/topic/session/s1/tabs", null, () -> { sent.add("batch"); done.countDown(); }));
+        stalled.countDown();
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "announcement-3", "batch"), sent);
+    }
+
+    @Test
+    void execute_ShouldDeliverEverySequencedMessage_WhileClientLags() throws InterruptedException {
+        // Given
+        List<Integer> tabSequences = new CopyOnWriteArrayList<>();
+        List<Integer> presenceVersions = new CopyOnWriteArrayList<>();
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        executor.execute(task("conn-1", "/user/queue/errors", null, () -> await(stalled)));
+
+        // When the same tab is updated and users come and go while the client is stalled
+        for (int i = 1; i <= 2; i++) {
+            int sequence = i;
+            executor.execute(task("conn-1", "/topic/session/s1/tabs", null, () -> { tabSequences.add(sequence); done.countDown(); }));
+            executor.execute(task("conn-1", "/topic/session/s1/presence", null, () -> { presenceVersions.add(sequence); done.countDown(); }));
+        }
+        stalled.countDown();
+
+        // Then no sequence or version is skipped, so the client never replays or resyncs
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2), tabSequences);
+        assertEquals(List.of(1, 2), presenceVersions);
+    }
+
+    @Test
+    void execute_ShouldDisconnectClient_WhenQueueLimitExceeded() throws Exception {
+        // Given
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("conn-1");
+        executor.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+        CountDownLatch stalled = new CountDownLatch(1);
+        executor.execute(task("conn-1", "/user/queue/errors", null, () -> await(stalled)));
+
+        // When
+        for (int i = 0; i < 7; i++) {
+            executor.execute(task("conn-1", "/topic/session/s1/tabs", null, () -> { }));
+        }
+        stalled.countDown();
+
+        // Then
+        verify(session, times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void execute_ShouldDeliverQueuedMessages_WhenDrainWasDiscarded() throws InterruptedException {
+        assertDrainRetriedAfterRejection(new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Test
+    void execute_ShouldNotDrainOnCallerThread_WhenPoolRunsRejectedTasksOnCaller() throws InterruptedException {
+        assertDrainRetriedAfterRejection(new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Test
+    void supersedeKey_ShouldOnlyCoalesceMessagesMarkedWithKey() {
+        assertEquals("presence:s1:node-a",
+                     ClientOutboundExecutor.supersedeKey(message("conn-1", "/topic/session/s1/presence", "presence:s1:node-a").getHeaders()));
+        assertNull(ClientOutboundExecutor.supersedeKey(message("conn-1", "/topic/session/s1/presence", null).getHeaders()));
+        assertNull(ClientOutboundExecutor.supersedeKey(message("conn-1", "/topic/session/s1/tabs", null).getHeaders()));
+    }
+
+    private void assertDrainRetriedAfterRejection(RejectedExecutionHandler policy) throws InterruptedException {
+        // Given a single-thread pool with no queue, busy with another task
+        executor.shutdown();
+        executor = new ClientOutboundExecutor(new SimpleMeterRegistry(), "websocket.outbound", Duration.ofSeconds(10), 5);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(policy);
+        executor.initialize();
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> { busy.countDown(); await(release); });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        Thread caller = Thread.currentThread();
+
+        // When
+        executor.execute(task("conn-1", "/topic/session/s1/tabs", null, () -> {
+            sent.add(Thread.currentThread() == caller ? "first-on-caller" : "first");
+            done.countDown();
+        }));
+        release.countDown();
+        Thread.sleep(100);
+        executor.execute(task("conn-1", "/topic/session/s1/tabs", null, () -> { sent.add("second"); done.countDown(); }));
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "second"), sent);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Message<byte[]> message(String sessionId, String destination, String supersedeKey) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        if (supersedeKey != null) {
+            accessor.setNativeHeader(BroadcastPublisher.SUPERSEDE_KEY_HEADER, supersedeKey);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static MessageHandlingRunnable task(String sessionId, String destination, String supersedeKey, Runnable body) {
+        Message<byte[]> message = message(sessionId, destination, supersedeKey);
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return msg -> body.run();
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+}
\ No newline at end of file
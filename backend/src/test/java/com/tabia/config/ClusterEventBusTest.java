@@ -0,0 +1,188 @@
+package com.tabia.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tabia.dto.websocket.UserPresenceMessage;
+import com.tabia.service.UserPresenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ClusterEventBus
+ */
+@ExtendWith(MockitoExtension.class)
+class ClusterEventBusTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<SimpMessagingTemplate> messagingTemplateProvider;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private ObjectProvider<UserPresenceService> userPresenceServiceProvider;
+
+    @Mock
+    private UserPresenceService userPresenceService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ClusterEventBus eventBus;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = new ClusterEventBus(dataSource, jdbcTemplate, objectMapper, messagingTemplateProvider, userPresenceServiceProvider,
+                                       "tabia_events", Duration.ofMillis(10));
+    }
+
+    @Test
+    void flush_ShouldBatchQueuedBroadcastsIntoOneNotify() {
+        // Given
+        eventBus.preSend(broadcast("/topic/session/1/tabs", "{\"a\":1}"), null);
+        eventBus.preSend(broadcast("/topic/session/2/tabs", "{\"b\":2}"), null);
+        eventBus.preSend(broadcast("/user/queue/errors", "{}"), null);
+
+        // When
+        eventBus.flush();
+
+        // Then
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate, times(1)).queryForObject(eq("SELECT pg_notify(?, ?)"), eq(String.class),
+                                                     eq("tabia_events"), payload.capture());
+        assertTrue(payload.getValue().toString().contains("/topic/session/1/tabs"));
+        assertTrue(payload.getValue().toString().contains("/topic/session/2/tabs"));
+        assertFalse(payload.getValue().toString().contains("/user/queue/errors"));
+    }
+
+    @Test
+    void packBatches_ShouldSplitAtPayloadLimit() throws Exception {
+        // Given
+        List<ObjectNode> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ObjectNode event = objectMapper.createObjectNode();
+            event.put("destination", "/topic/session/" + i + "/tabs");
+            event.put("payload", "x".repeat(1500));
+            events.add(event);
+        }
+
+        // When
+        List<String> batches = eventBus.packBatches(events);
+
+        // Then
+        assertTrue(batches.size() > 1);
+        int total = 0;
+        for (String batch : batches) {
+            assertTrue(batch.getBytes(StandardCharsets.UTF_8).length < ClusterEventBus.MAX_PAYLOAD_BYTES);
+            total += objectMapper.readTree(batch).path("events").size();
+        }
+        assertEquals(10, total);
+    }
+
+    @Test
+    void deliver_ShouldSkipOwnBatchesAndRebroadcastOthers() {
+        // Given
+        eventBus.preSend(broadcast("/topic/session/1/tabs", "{\"a\":1}"), null);
+        eventBus.flush();
+        ArgumentCaptor<Object> ownBatch = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).queryForObject(anyString(), eq(String.class), any(), ownBatch.capture());
+        String remoteBatch = "{\"origin\":\"other-node\",\"events\":[{\"destination\":\"/topic/session/1/tabs\","
+                           + "\"contentType\":\"application/json\",\"payload\":\"{\\\"a\\\":1}\"}]}";
+        when(messagingTemplateProvider.getObject()).thenReturn(messagingTemplate);
+
+        // When
+        eventBus.deliver(ownBatch.getValue().toString());
+        eventBus.deliver(remoteBatch);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(1)).send(eq("/topic/session/1/tabs"), message.capture());
+        assertEquals("other-node", message.getValue().getHeaders().get(ClusterEventBus.ORIGIN_HEADER));
+        eventBus.preSend(message.getValue(), null);
+        eventBus.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void deliver_ShouldReassembleEventTooLargeForOneNotify() throws Exception {
+        // Given
+        String large = "{\"tabs\":\"" + "é".repeat(6000) + "\"}";
+        ObjectNode event = objectMapper.createObjectNode();
+        event.put("destination", "/topic/session/1/tabs");
+        event.put("payload", large);
+        List<String> batches = eventBus.packBatches(List.of(event));
+        ClusterEventBus remote = new ClusterEventBus(dataSource, jdbcTemplate, objectMapper, messagingTemplateProvider, userPresenceServiceProvider,
+                                                     "tabia_events", Duration.ofMillis(10));
+        when(messagingTemplateProvider.getObject()).thenReturn(messagingTemplate);
+
+        // When
+        for (String batch : batches) {
+            remote.deliver(batch);
+        }
+
+        // Then
+        assertTrue(batches.size() > 1);
+        for (String batch : batches) {
+            assertTrue(batch.getBytes(StandardCharsets.UTF_8).length < ClusterEventBus.MAX_PAYLOAD_BYTES);
+        }
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(1)).send(eq("/topic/session/1/tabs"), message.capture());
+        assertEquals(large, new String((byte[]) message.getValue().getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void deliver_ShouldHandRemotePresenceToPresenceService() {
+        // Given
+        String remoteBatch = "{\"origin\":\"other-node\",\"events\":[{\"destination\":\"/topic/session/1/presence\","
+                           + "\"contentType\":\"application/json\",\"payload\":\"{\\\"type\\\":\\\"PRESENCE_DELTA\\\","
+                           + "\\\"origin\\\":\\\"node-b\\\",\\\"version\\\":4}\"}]}";
+        when(messagingTemplateProvider.getObject()).thenReturn(messagingTemplate);
+        when(userPresenceServiceProvider.getIfAvailable()).thenReturn(userPresenceService);
+
+        // When
+        eventBus.deliver(remoteBatch);
+
+        // Then
+        ArgumentCaptor<UserPresenceMessage> presence = ArgumentCaptor.forClass(UserPresenceMessage.class);
+        verify(messagingTemplate).send(eq("/topic/session/1/presence"), any());
+        verify(userPresenceService).applyRemotePresence(presence.capture());
+        assertEquals("node-b", presence.getValue().getOrigin());
+        assertEquals(4L, presence.getValue().getVersion());
+    }
+
+    private Message<byte[]> broadcast(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.tabia.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SessionStripedExecutor
+ */
+class SessionStripedExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionStripedExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new SessionStripedExecutor(meterRegistry, "websocket.inbound", 4, 1000);
+        executor.setCorePoolSize(4);
+        executor.setThreadNamePrefix("test-inbound-");
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_ShouldKeepMessagesForOneSessionInOrder() throws InterruptedException {
+        // Given
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(200);
+
+        // When
+        IntStream.range(0, 200).forEach(i -> executor.execute(
+            task("/app/session/1f0c6c1e-1111-4000-8000-000000000001/update-tab/x", () -> {
+                handled.add(i);
+                done.countDown();
+            })));
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 200).boxed().toList(), handled);
+    }
+
+    @Test
+    void execute_ShouldRunSessionMessagesOnLanesAndOthersOnSharedPool() throws InterruptedException {
+        // Given
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        // When
+        executor.execute(task("/topic/session/abc/tabs", () -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        }));
+        executor.execute(task("/user/queue/errors", () -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        }));
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, threads.stream().filter(name -> name.contains("lane-")).count());
+        assertNotNull(meterRegistry.find("tabia.websocket.lane.depth").tag("lane", "0").gauge());
+    }
+
+    @Test
+    void execute_ShouldKeepFramesWithoutDestinationInOrderPerClient() throws InterruptedException {
+        // Given
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+
+        // When
+        IntStream.range(0, 100).forEach(i -> executor.execute(task(frame(SimpMessageType.UNSUBSCRIBE, "conn-1"), () -> {
+            handled.add(i);
+            done.countDown();
+        })));
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 100).boxed().toList(), handled);
+        assertEquals("conn-1", SessionStripedExecutor.laneKey(frame(SimpMessageType.DISCONNECT, "conn-1")));
+    }
+
+    @Test
+    void execute_ShouldRefuseMessage_WhenLaneIsFull() throws InterruptedException {
+        // Given a lane that holds one running and one queued message
+        executor.shutdown();
+        executor = new SessionStripedExecutor(meterRegistry, "websocket.inbound", 1, 1);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(task("/app/session/abc/add-tab", () -> {
+            running.countDown();
+            await(release);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        executor.execute(task("/app/session/abc/add-tab", () -> { }));
+
+        // When
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(task("/app/session/abc/add-tab", () -> { })));
+        release.countDown();
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("tabia.websocket.lane.rejected").counter().count());
+    }
+
+    @Test
+    void sessionKey_ShouldExtractSessionSegment() {
+        assertEquals("abc", SessionStripedExecutor.sessionKey(message("/app/session/abc/add-tab")));
+        assertEquals("abc", SessionStripedExecutor.sessionKey(message("/topic/session/abc")));
+        assertNull(SessionStripedExecutor.sessionKey(message("/app/presence")));
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String stompSessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(stompSessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MessageHandlingRunnable task(String destination, Runnable body) {
+        return task(message(destination), body);
+    }
+
+    private static MessageHandlingRunnable task(Message<byte[]> message, Runnable body) {
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return msg -> body.run();
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.tabia.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that broadcasts reach the broker in publish order with the real broker channel configuration
+ */
+@SpringJUnitWebConfig(WebSocketBrokerOrderTest.TestConfig.class)
+class WebSocketBrokerOrderTest {
+
+    @Configuration
+    @Import({WebSocketConfig.class, WebSocketChannelExecutors.class})
+    static class TestConfig {
+
+        // Converts the Duration defaults of the @Value parameters, as in the Boot application
+        @Bean
+        static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        WebSocketAuthChannelInterceptor webSocketAuthChannelInterceptor() {
+            return mock(WebSocketAuthChannelInterceptor.class);
+        }
+    }
+
+    @Autowired
+    @Qualifier("brokerChannel")
+    private AbstractSubscribableChannel brokerChannel;
+
+    @Autowired
+    @Qualifier("brokerMessagingTemplate")
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    void send_ShouldReachBrokerInPublishOrder_ForOneDestination() {
+        // Given
+        int messages = 2000;
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        MessageHandler recorder = (Message<?> message) -> {
+            if ("/topic/session/1/tabs".equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                received.add(new String((byte[]) message.getPayload()));
+            }
+        };
+        brokerChannel.subscribe(recorder);
+
+        // When
+        IntStream.range(0, messages).forEach(i -> messagingTemplate.convertAndSend("/topic/session/1/tabs", String.valueOf(i)));
+
+        // Then
+        brokerChannel.unsubscribe(recorder);
+        assertEquals(IntStream.range(0, messages).mapToObj(String::valueOf).toList(), received);
+    }
+}
\ No newline at end of file
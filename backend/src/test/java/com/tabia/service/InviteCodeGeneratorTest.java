@@ -0,0 +1,86 @@
+package com.tabia.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InviteCodeGenerator
+ */
+class InviteCodeGeneratorTest {
+
+    @Test
+    void nextCode_ShouldReturnShortBase32Codes() {
+        // Given
+        InviteCodeGenerator generator = new InviteCodeGenerator(0, "test-secret");
+
+        // When
+        String code = generator.nextCode();
+
+        // Then
+        assertEquals(10, code.length());
+        assertTrue(code.matches("[0-9A-HJKMNP-TV-Z]+"));
+    }
+
+    @Test
+    void nextCode_ShouldNeverRepeatWithinNode() {
+        // Given
+        InviteCodeGenerator generator = new InviteCodeGenerator(3, "test-secret");
+        Set<String> codes = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            codes.add(generator.nextCode());
+        }
+
+        // Then
+        assertEquals(100_000, codes.size());
+    }
+
+    @Test
+    void nextCode_ShouldNotCollideAcrossNodes() {
+        // Given
+        InviteCodeGenerator nodeA = new InviteCodeGenerator(1, "shared-secret");
+        InviteCodeGenerator nodeB = new InviteCodeGenerator(2, "shared-secret");
+        Set<String> codes = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            codes.add(nodeA.nextCode());
+            codes.add(nodeB.nextCode());
+        }
+
+        // Then
+        assertEquals(20_000, codes.size());
+    }
+
+    @Test
+    void permute_ShouldBeBijectiveOverSampledRange() {
+        // Given
+        InviteCodeGenerator generator = new InviteCodeGenerator(0, "test-secret");
+        Set<Long> outputs = new HashSet<>();
+
+        // When
+        for (long block = 0; block < 50_000; block++) {
+            long permuted = generator.permute(block);
+            assertTrue(permuted >= 0 && permuted < (1L << 50));
+            outputs.add(permuted);
+        }
+
+        // Then
+        assertEquals(50_000, outputs.size());
+    }
+
+    @Test
+    void constructor_ShouldRejectOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new InviteCodeGenerator(64, "test-secret"));
+    }
+
+    @Test
+    void constructor_ShouldRejectMissingSecret() {
+        assertThrows(IllegalArgumentException.class, () -> new InviteCodeGenerator(0, " "));
+    }
+}
@@ -0,0 +1,65 @@
+package com.tabia.service;
+
+import com.tabia.repository.InviteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for InviteReaper
+ */
+@ExtendWith(MockitoExtension.class)
+class InviteReaperTest {
+
+    @Mock
+    private InviteRepository inviteRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InviteReaper inviteReaper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inviteReaper = new InviteReaper(inviteRepository, meterRegistry, 100, 3, Duration.ofHours(1));
+    }
+
+    @Test
+    void reap_ShouldDeleteInBatchesUntilShortBatch() {
+        // Given
+        when(inviteRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100)))
+            .thenReturn(100, 42);
+
+        // When
+        inviteReaper.reap();
+
+        // Then
+        verify(inviteRepository, times(2)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(142.0, meterRegistry.get("tabia.invites.reaped").counter().count());
+        assertEquals(1, meterRegistry.get("tabia.invites.reaper.run").timer().count());
+    }
+
+    @Test
+    void reap_ShouldStopAtBatchBudget() {
+        // Given
+        when(inviteRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100))).thenReturn(100);
+
+        // When
+        inviteReaper.reap();
+
+        // Then
+        verify(inviteRepository, times(3)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(300.0, meterRegistry.get("tabia.invites.reaped").counter().count());
+        assertEquals(1, meterRegistry.get("tabia.invites.reaper.run").timer().count());
+    }
+}
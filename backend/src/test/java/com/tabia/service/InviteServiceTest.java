@@ -0,0 +1,216 @@
+package com.tabia.service;
+
+import com.tabia.dto.CollaboratorResponse;
+import com.tabia.dto.CreateInviteRequest;
+import com.tabia.dto.InviteResponse;
+import com.tabia.exception.BadRequestException;
+import com.tabia.model.Collaborator;
+import com.tabia.model.Invite;
+import com.tabia.model.Session;
+import com.tabia.repository.CollaboratorRepository;
+import com.tabia.repository.InviteRepository;
+import com.tabia.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for InviteService
+ */
+@ExtendWith(MockitoExtension.class)
+class InviteServiceTest {
+
+    @Mock
+    private InviteRepository inviteRepository;
+
+    @Mock
+    private CollaboratorRepository collaboratorRepository;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    @Mock
+    private InviteCodeGenerator inviteCodeGenerator;
+
+    @InjectMocks
+    private InviteService inviteService;
+
+    private String ownerId;
+    private String userId;
+    private UUID sessionId;
+    private Invite testInvite;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = "owner-123";
+        userId = "user-456";
+        sessionId = UUID.randomUUID();
+
+        testInvite = new Invite(sessionId, "ABCDEFGHJK", Collaborator.CollaboratorRole.EDITOR,
+                                ownerId, LocalDateTime.now().plusHours(24));
+    }
+
+    @Test
+    void createInvite_ShouldCreateMultiUseInvite() {
+        // Given
+        Session session = new Session(ownerId, "Test Session", false);
+        session.setId(sessionId);
+        CreateInviteRequest request = new CreateInviteRequest(Collaborator.CollaboratorRole.VIEWER, 48);
+        request.setMaxUses(200);
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(inviteCodeGenerator.nextCode()).thenReturn("ABCDEFGHJK");
+        when(inviteRepository.insertIfCodeUnused(any(UUID.class), eq(sessionId), eq("ABCDEFGHJK"), eq("VIEWER"),
+                                                  eq(ownerId), any(LocalDateTime.class), any(LocalDateTime.class),
+                                                  eq(200)))
+            .thenAnswer(invocation -> Optional.of(storedInvite(invocation.getArgument(2), 200)));
+
+        // When
+        InviteResponse response = inviteService.createInvite(ownerId, sessionId, request);
+
+        // Then
+        assertEquals("ABCDEFGHJK", response.getInviteCode());
+        assertEquals(200, response.getMaxUses());
+        assertEquals(200, response.getRemainingUses());
+        assertFalse(response.getUsed());
+        verify(inviteRepository, never()).save(any(Invite.class));
+    }
+
+    @Test
+    void createInvite_ShouldRetryWithNewCode_WhenInsertHitsStoredCode() {
+        // Given
+        Session session = new Session(ownerId, "Test Session", false);
+        session.setId(sessionId);
+        CreateInviteRequest request = new CreateInviteRequest(Collaborator.CollaboratorRole.VIEWER, 48);
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(inviteCodeGenerator.nextCode()).thenReturn("ABCDEFGHJK", "MNPQRSTVWX");
+        when(inviteRepository.insertIfCodeUnused(any(UUID.class), eq(sessionId), anyString(), eq("VIEWER"),
+                                                  eq(ownerId), any(LocalDateTime.class), any(LocalDateTime.class),
+                                                  eq(1)))
+            .thenReturn(Optional.empty())
+            .thenAnswer(invocation -> Optional.of(storedInvite(invocation.getArgument(2), 1)));
+
+        // When
+        InviteResponse response = inviteService.createInvite(ownerId, sessionId, request);
+
+        // Then
+        assertEquals("MNPQRSTVWX", response.getInviteCode());
+        verify(inviteCodeGenerator, times(2)).nextCode();
+        verify(inviteRepository, times(2)).insertIfCodeUnused(any(), any(), anyString(), anyString(), anyString(),
+                                                               any(), any(), anyInt());
+    }
+
+    @Test
+    void acceptInvite_ShouldClaimInviteAndAddCollaborator() {
+        // Given
+        when(inviteRepository.claimValidInvite(eq("ABCDEFGHJK"), eq(userId), any(LocalDateTime.class)))
+            .thenReturn(Optional.of(testInvite));
+        when(collaboratorRepository.insertIfAbsent(any(UUID.class), eq(sessionId), eq(userId),
+                                                   eq("EDITOR"), any(LocalDateTime.class)))
+            .thenReturn(1);
+
+        // When
+        inviteService.acceptInvite(userId, "ABCDEFGHJK");
+
+        // Then
+        verify(inviteRepository, never()).findValidInviteByCode(anyString(), any());
+        verify(sessionRepository, never()).findById(any());
+        verify(collaboratorRepository, never()).save(any());
+    }
+
+    @Test
+    void acceptInvite_ShouldThrowException_WhenInviteAlreadyClaimed() {
+        // Given
+        when(inviteRepository.claimValidInvite(eq("ABCDEFGHJK"), eq(userId), any(LocalDateTime.class)))
+            .thenReturn(Optional.empty());
+        when(inviteRepository.findValidInviteByCode(eq("ABCDEFGHJK"), any(LocalDateTime.class)))
+            .thenReturn(Optional.empty());
+
+        // When & Then
+        BadRequestException ex = assertThrows(BadRequestException.class,
+            () -> inviteService.acceptInvite(userId, "ABCDEFGHJK"));
+
+        assertEquals("Invalid or expired invite code", ex.getMessage());
+        verify(collaboratorRepository, never()).insertIfAbsent(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void acceptInvite_ShouldThrowException_WhenOwnerAcceptsOwnInvite() {
+        // Given
+        Session session = new Session(ownerId, "Test Session", false);
+        session.setId(sessionId);
+        when(inviteRepository.claimValidInvite(eq("ABCDEFGHJK"), eq(ownerId), any(LocalDateTime.class)))
+            .thenReturn(Optional.empty());
+        when(inviteRepository.findValidInviteByCode(eq("ABCDEFGHJK"), any(LocalDateTime.class)))
+            .thenReturn(Optional.of(testInvite));
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+
+        // When & Then
+        BadRequestException ex = assertThrows(BadRequestException.class,
+            () -> inviteService.acceptInvite(ownerId, "ABCDEFGHJK"));
+
+        assertEquals("Session owner cannot accept invite to their own session", ex.getMessage());
+    }
+
+    @Test
+    void acceptInvite_ShouldThrowException_WhenUserAlreadyCollaborator() {
+        // Given
+        when(inviteRepository.claimValidInvite(eq("ABCDEFGHJK"), eq(userId), any(LocalDateTime.class)))
+            .thenReturn(Optional.of(testInvite));
+        when(collaboratorRepository.insertIfAbsent(any(UUID.class), eq(sessionId), eq(userId),
+                                                   eq("EDITOR"), any(LocalDateTime.class)))
+            .thenReturn(0);
+
+        // When & Then
+        assertThrows(BadRequestException.class,
+            () -> inviteService.acceptInvite(userId, "ABCDEFGHJK"));
+    }
+
+    @Test
+    void getSessionCollaborators_ShouldResolveAllUsersInOneLookup() {
+        // Given
+        Session session = new Session(ownerId, "Test Session", false);
+        session.setId(sessionId);
+        Collaborator first = new Collaborator(sessionId, "user-1", Collaborator.CollaboratorRole.EDITOR);
+        Collaborator second = new Collaborator(sessionId, "user-2", Collaborator.CollaboratorRole.VIEWER);
+        when(sessionRepository.findByIdAndUserHasAccess(sessionId, ownerId)).thenReturn(Optional.of(session));
+        when(collaboratorRepository.findBySessionIdOrderByAddedAtDesc(sessionId)).thenReturn(List.of(first, second));
+        when(userProfileCache.getAll(any())).thenReturn(Map.of(
+            "user-1", new UserProfileCache.UserProfile("user-1", "one@example.com", "User One", null),
+            "user-2", new UserProfileCache.UserProfile("user-2", "two@example.com", "User Two", null)
+        ));
+
+        // When
+        List<CollaboratorResponse> response = inviteService.getSessionCollaborators(ownerId, sessionId);
+
+        // Then
+        assertEquals(2, response.size());
+        assertEquals("User One", response.get(0).getUserName());
+        assertEquals("two@example.com", response.get(1).getUserEmail());
+        verify(userProfileCache, times(1)).getAll(any());
+        verify(userProfileCache, never()).get(any());
+    }
+
+    private Invite storedInvite(String inviteCode, int maxUses) {
+        return new Invite(sessionId, inviteCode, Collaborator.CollaboratorRole.VIEWER, ownerId,
+                          LocalDateTime.now().plusHours(48), maxUses);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.tabia.service;
+
+import com.tabia.dto.SessionPresenceResponse;
+import com.tabia.dto.websocket.UserPresenceMessage;
+import com.tabia.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PresenceQueryService
+ */
+@ExtendWith(MockitoExtension.class)
+class PresenceQueryServiceTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private UserPresenceService userPresenceService;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    private PresenceQueryService presenceQueryService;
+
+    @BeforeEach
+    void setUp() {
+        presenceQueryService = new PresenceQueryService(sessionRepository, userPresenceService, userProfileCache, 5);
+    }
+
+    @Test
+    void getPresenceForSessions_ShouldSkipInaccessibleSessionsAndResolvePhotosInOneLookup() {
+        // Given
+        UUID visibleSessionId = UUID.randomUUID();
+        UUID hiddenSessionId = UUID.randomUUID();
+        when(sessionRepository.findAccessibleSessionIds(anyCollection(), eq("user-1")))
+            .thenReturn(List.of(visibleSessionId));
+        when(userPresenceService.getActiveUsersForSession(visibleSessionId)).thenReturn(List.of(
+            new UserPresenceMessage.UserInfo("user-2", "User Two", "two@example.com", LocalDateTime.now()),
+            new UserPresenceMessage.UserInfo("user-3", "User Three", "three@example.com", LocalDateTime.now())
+        ));
+        when(userProfileCache.getAll(any())).thenReturn(Map.of(
+            "user-2", new UserProfileCache.UserProfile("user-2", "two@example.com", "User Two", "https://photo/2")
+        ));
+
+        // When
+        List<SessionPresenceResponse> response = presenceQueryService.getPresenceForSessions(
+            "user-1", List.of(hiddenSessionId, visibleSessionId));
+
+        // Then
+        assertEquals(1, response.size());
+        assertEquals(visibleSessionId, response.get(0).getSessionId());
+        assertEquals(2, response.get(0).getActiveUserCount());
+        assertEquals("https://photo/2", response.get(0).getAvatars().get(0).getPhotoUrl());
+        assertNull(response.get(0).getAvatars().get(1).getPhotoUrl());
+        verify(userPresenceService, never()).getActiveUsersForSession(hiddenSessionId);
+        verify(userProfileCache, times(1)).getAll(any());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.tabia.service;
+
+import com.tabia.dto.websocket.SequencedMessage;
+import com.tabia.dto.websocket.SessionUpdateMessage;
+import com.tabia.dto.websocket.TabUpdateMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SessionEventLog
+ */
+class SessionEventLogTest {
+
+    private SessionEventLog sessionEventLog;
+    private UUID sessionId;
+
+    @BeforeEach
+    void setUp() {
+        sessionEventLog = new SessionEventLog(4, 100, Duration.ofHours(1));
+        sessionId = UUID.randomUUID();
+    }
+
+    @Test
+    void append_ShouldNumberTabAndSessionUpdatesInOneSequence() {
+        // Given
+        TabUpdateMessage tabUpdate = new TabUpdateMessage(TabUpdateMessage.UpdateType.TAB_ADDED, sessionId, null, "user-1", "User One");
+        SessionUpdateMessage sessionUpdate = new SessionUpdateMessage(SessionUpdateMessage.UpdateType.SESSION_RENAMED, sessionId, "user-1");
+
+        // When
+        sessionEventLog.append(sessionId, List.of(tabUpdate), () -> { });
+        sessionEventLog.append(sessionId, List.of(sessionUpdate), () -> { });
+
+        // Then
+        assertEquals(tabUpdate.getSequence() + 1, sessionUpdate.getSequence());
+        assertEquals(sessionEventLog.origin(), tabUpdate.getOrigin());
+        assertEquals(sessionEventLog.origin(), sessionUpdate.getOrigin());
+        assertEquals(sessionUpdate.getSequence(), sessionEventLog.currentSequence(sessionId));
+    }
+
+    @Test
+    void since_ShouldReturnMissedEvents_WhenGapIsBuffered() {
+        // Given
+        List<TabUpdateMessage> events = appendTabUpdates(3);
+        long lastSeen = events.get(0).getSequence();
+
+        // When
+        Optional<List<SequencedMessage>> missed = sessionEventLog.since(sessionId, sessionEventLog.origin(), lastSeen);
+
+        // Then
+        assertTrue(missed.isPresent());
+        assertEquals(List.of(events.get(1), events.get(2)), missed.get());
+        assertEquals(List.of(), sessionEventLog.since(sessionId, sessionEventLog.origin(), events.get(2).getSequence()).orElseThrow());
+    }
+
+    @Test
+    void since_ShouldRequireReload_WhenGapHasLeftBuffer() {
+        // Given
+        List<TabUpdateMessage> events = appendTabUpdates(6);
+
+        // When & Then
+        assertTrue(sessionEventLog.since(sessionId, sessionEventLog.origin(), events.get(0).getSequence()).isEmpty());
+        assertEquals(4, sessionEventLog.since(sessionId, sessionEventLog.origin(), events.get(1).getSequence()).orElseThrow().size());
+        assertTrue(sessionEventLog.since(UUID.randomUUID(), sessionEventLog.origin(), events.get(1).getSequence()).isEmpty());
+    }
+
+    @Test
+    void since_ShouldRequireReload_WhenSequenceIsFromAnotherOrigin() {
+        // Given
+        List<TabUpdateMessage> events = appendTabUpdates(3);
+        SessionEventLog otherNode = new SessionEventLog(4, 100, Duration.ofHours(1));
+
+        // When & Then
+        assertTrue(sessionEventLog.since(sessionId, otherNode.origin(), events.get(0).getSequence()).isEmpty());
+        assertTrue(sessionEventLog.since(sessionId, null, events.get(0).getSequence()).isEmpty());
+    }
+
+    private List<TabUpdateMessage> appendTabUpdates(int count) {
+        List<TabUpdateMessage> events = IntStream.range(0, count)
+            .mapToObj(i -> new TabUpdateMessage(TabUpdateMessage.UpdateType.TAB_UPDATED, sessionId, null, "user-1", "User One"))
+            .toList();
+        sessionEventLog.append(sessionId, events, () -> { });
+        return events;
+    }
+}
\ No newline at end of file
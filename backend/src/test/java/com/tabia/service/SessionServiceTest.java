@@ -2,14 +2,14 @@ package com.tabia.service;
 
 import com.tabia.dto.CreateSessionRequest;
 import com.tabia.dto.SessionResponse;
+import com.tabia.dto.UpdateSessionRequest;
+import com.tabia.exception.ConflictException;
 import com.tabia.exception.ResourceNotFoundException;
 import com.tabia.exception.UnauthorizedException;
 import com.tabia.model.Session;
-import com.tabia.model.User;
 import com.tabia.repository.CollaboratorRepository;
 import com.tabia.repository.SessionRepository;
 import com.tabia.repository.TabRepository;
-import com.tabia.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +20,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,7 +45,10 @@ class SessionServiceTest {
     private CollaboratorRepository collaboratorRepository;
     
     @Mock
-    private UserRepository userRepository;
+    private UserProfileCache userProfileCache;
+    
+    @Mock
+    private TabPositionAllocator tabPositionAllocator;
     
     @InjectMocks
     private SessionService sessionService;
@@ -51,14 +56,14 @@ class SessionServiceTest {
     private String userId;
     private UUID sessionId;
     private Session testSession;
-    private User testUser;
+    private UserProfileCache.UserProfile testUser;
     
     @BeforeEach
     void setUp() {
         userId = "test-user-123";
         sessionId = UUID.randomUUID();
         
-        testUser = new User(userId, "test@example.com", "Test User", "photo.jpg");
+        testUser = new UserProfileCache.UserProfile(userId, "test@example.com", "Test User", "photo.jpg");
         testSession = new Session(userId, "Test Session", false);
         testSession.setId(sessionId);
         testSession.setCreatedAt(LocalDateTime.now());
@@ -75,7 +80,7 @@ class SessionServiceTest {
         
         when(sessionRepository.save(any(Session.class))).thenReturn(testSession);
         when(tabRepository.saveAll(any())).thenReturn(new ArrayList<>());
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userProfileCache.get(userId)).thenReturn(Optional.of(testUser));
         
         // When
         SessionResponse response = sessionService.createSession(userId, request);
@@ -95,7 +100,7 @@ class SessionServiceTest {
         // Given
         List<Session> sessions = List.of(testSession);
         when(sessionRepository.findAllUserSessions(userId)).thenReturn(sessions);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userProfileCache.getAll(Set.of(userId))).thenReturn(Map.of(userId, testUser));
         
         // When
         List<SessionResponse> response = sessionService.getAllUserSessions(userId);
@@ -104,6 +109,7 @@ class SessionServiceTest {
         assertNotNull(response);
         assertEquals(1, response.size());
         assertEquals(testSession.getId(), response.get(0).getId());
+        assertEquals("Test User", response.get(0).getOwnerName());
         
         verify(sessionRepository).findAllUserSessions(userId);
     }
@@ -113,7 +119,7 @@ class SessionServiceTest {
         // Given
         when(sessionRepository.findByIdAndUserHasAccess(sessionId, userId))
             .thenReturn(Optional.of(testSession));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userProfileCache.get(userId)).thenReturn(Optional.of(testUser));
         
         // When
         SessionResponse response = sessionService.getSessionById(userId, sessionId);
@@ -149,6 +155,7 @@ class SessionServiceTest {
         // Then
         verify(sessionRepository).findById(sessionId);
         verify(sessionRepository).delete(testSession);
+        verify(tabPositionAllocator).invalidateSession(sessionId);
     }
     
     @Test
@@ -164,4 +171,21 @@ class SessionServiceTest {
         verify(sessionRepository).findById(sessionId);
         verify(sessionRepository, never()).delete(any());
     }
+    
+    @Test
+    void updateSession_ShouldThrowConflict_WhenExpectedVersionIsStale() {
+        // Given
+        testSession.setVersion(3L);
+        UpdateSessionRequest request = new UpdateSessionRequest("Renamed", null);
+        request.setExpectedVersion(2L);
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(testSession));
+        
+        // When & Then
+        ConflictException ex = assertThrows(ConflictException.class, 
+            () -> sessionService.updateSession(userId, sessionId, request));
+        
+        assertEquals(3L, ((SessionResponse) ex.getCurrentState()).getVersion());
+        assertEquals("Test Session", testSession.getName());
+        verify(sessionRepository, never()).saveAndFlush(any());
+    }
 }
\ No newline at end of file
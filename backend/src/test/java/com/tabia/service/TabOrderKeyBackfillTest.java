@@ -0,0 +1,90 @@
+package com.tabia.service;
+
+import com.tabia.model.Tab;
+import com.tabia.repository.TabRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TabOrderKeyBackfill
+ */
+@ExtendWith(MockitoExtension.class)
+class TabOrderKeyBackfillTest {
+
+    @Mock
+    private TabRepository tabRepository;
+
+    private TabOrderKeyBackfill backfill;
+
+    private UUID sessionId;
+
+    @BeforeEach
+    void setUp() {
+        backfill = new TabOrderKeyBackfill(tabRepository, 100);
+        sessionId = UUID.randomUUID();
+    }
+
+    @Test
+    void backfill_ShouldKeyLegacyTabsBelowKeyedTabsInTabIndexOrder() {
+        // Given
+        Tab second = tab(1, null);
+        Tab first = tab(0, null);
+        Tab keyed = tab(2, "i");
+        Tab otherWindow = new Tab(sessionId, "Title", "https://example.com", 0, 1);
+        otherWindow.setId(UUID.randomUUID());
+        when(tabRepository.findSessionIdsWithoutOrderKeys(any(Pageable.class)))
+            .thenReturn(List.of(sessionId), List.of());
+        when(tabRepository.findBySessionIdOrderByWindowIndexAscTabIndexAsc(sessionId))
+            .thenReturn(List.of(keyed, second, otherWindow, first));
+        when(tabRepository.assignOrderKeyIfMissing(any(UUID.class), anyString())).thenReturn(1);
+
+        // When
+        backfill.backfill();
+
+        // Then
+        ArgumentCaptor<String> firstKey = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> secondKey = ArgumentCaptor.forClass(String.class);
+        verify(tabRepository).assignOrderKeyIfMissing(eq(first.getId()), firstKey.capture());
+        verify(tabRepository).assignOrderKeyIfMissing(eq(second.getId()), secondKey.capture());
+        verify(tabRepository).assignOrderKeyIfMissing(eq(otherWindow.getId()), anyString());
+        verify(tabRepository, never()).assignOrderKeyIfMissing(eq(keyed.getId()), anyString());
+        assertTrue(firstKey.getValue().compareTo(secondKey.getValue()) < 0);
+        assertTrue(secondKey.getValue().compareTo("i") < 0);
+    }
+
+    @Test
+    void backfill_ShouldStop_WhenNoKeyCouldBeAssigned() {
+        // Given
+        Tab legacy = tab(0, null);
+        when(tabRepository.findSessionIdsWithoutOrderKeys(any(Pageable.class))).thenReturn(List.of(sessionId));
+        when(tabRepository.findBySessionIdOrderByWindowIndexAscTabIndexAsc(sessionId)).thenReturn(List.of(legacy));
+        when(tabRepository.assignOrderKeyIfMissing(any(UUID.class), anyString())).thenReturn(0);
+
+        // When
+        backfill.backfill();
+
+        // Then
+        verify(tabRepository, times(1)).findSessionIdsWithoutOrderKeys(any(Pageable.class));
+    }
+
+    private Tab tab(int tabIndex, String orderKey) {
+        Tab tab = new Tab(sessionId, "Title", "https://example.com", tabIndex, 0);
+        tab.setId(UUID.randomUUID());
+        tab.setOrderKey(orderKey);
+        return tab;
+    }
+}
\ No newline at end of file
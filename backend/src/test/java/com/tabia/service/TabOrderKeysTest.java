@@ -0,0 +1,168 @@
+package com.tabia.service;
+
+import com.tabia.model.Tab;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TabOrderKeys
+ */
+class TabOrderKeysTest {
+
+    @Test
+    void between_ShouldReturnKeyStrictlyBetweenBounds() {
+        // Given
+        String lower = "b";
+        String upper = "c";
+
+        // When
+        String key = TabOrderKeys.between(lower, upper);
+
+        // Then
+        assertTrue(lower.compareTo(key) < 0);
+        assertTrue(key.compareTo(upper) < 0);
+        assertTrue(TabOrderKeys.isValid(key));
+    }
+
+    @Test
+    void between_ShouldKeepKeysOrdered_WhenInsertingAtRandomPositions() {
+        // Given
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 2000; i++) {
+            int position = random.nextInt(keys.size() + 1);
+            String lower = position > 0 ? keys.get(position - 1) : null;
+            String upper = position < keys.size() ? keys.get(position) : null;
+            keys.add(position, TabOrderKeys.between(lower, upper));
+        }
+
+        // Then
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+            assertTrue(TabOrderKeys.isValid(keys.get(i)));
+        }
+    }
+
+    @Test
+    void after_ShouldKeepKeysShort_WhenAppendingRepeatedly() {
+        // Given
+        String key = null;
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            String next = TabOrderKeys.after(key);
+            assertTrue(key == null || key.compareTo(next) < 0);
+            key = next;
+        }
+
+        // Then
+        assertTrue(key.length() <= 20);
+    }
+
+    @Test
+    void between_ShouldGiveDistinctKeys_WhenSitesInsertIntoSameGap() {
+        // Given
+        String first = TabOrderKeys.newSite();
+        String second = TabOrderKeys.newSite();
+        assertNotEquals(first, second);
+
+        // When
+        String firstKey = TabOrderKeys.between("b", "c", first);
+        String secondKey = TabOrderKeys.between("b", "c", second);
+
+        // Then
+        assertNotEquals(firstKey, secondKey);
+        for (String key : List.of(firstKey, secondKey)) {
+            assertTrue("b".compareTo(key) < 0 && key.compareTo("c") < 0);
+            assertTrue(TabOrderKeys.isValid(key));
+        }
+        String lower = firstKey.compareTo(secondKey) < 0 ? firstKey : secondKey;
+        String upper = lower.equals(firstKey) ? secondKey : firstKey;
+        String key = TabOrderKeys.between(lower, upper, first);
+        assertTrue(lower.compareTo(key) < 0 && key.compareTo(upper) < 0);
+    }
+
+    @Test
+    void between_ShouldKeepTaggedKeysOrdered_WhenSitesInsertAtRandomPositions() {
+        // Given
+        Random random = new Random(7);
+        List<String> sites = List.of(TabOrderKeys.newSite(), TabOrderKeys.newSite(), TabOrderKeys.newSite());
+        List<String> keys = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 2000; i++) {
+            int position = random.nextInt(keys.size() + 1);
+            String lower = position > 0 ? keys.get(position - 1) : null;
+            String upper = position < keys.size() ? keys.get(position) : null;
+            keys.add(position, TabOrderKeys.between(lower, upper, sites.get(random.nextInt(sites.size()))));
+        }
+
+        // Then
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+            assertTrue(TabOrderKeys.isValid(keys.get(i)));
+        }
+    }
+
+    @Test
+    void between_ShouldThrow_WhenBoundsAreOutOfOrder() {
+        assertThrows(IllegalArgumentException.class, () -> TabOrderKeys.between("c", "b"));
+        assertThrows(IllegalArgumentException.class, () -> TabOrderKeys.between("b", "b"));
+    }
+
+    @Test
+    void isValid_ShouldRejectKeysWithoutRoomBeforeOrOutsideAlphabet() {
+        assertFalse(TabOrderKeys.isValid("a0"));
+        assertFalse(TabOrderKeys.isValid("A"));
+        assertFalse(TabOrderKeys.isValid("a-b"));
+        assertFalse(TabOrderKeys.isValid(""));
+        assertTrue(TabOrderKeys.isValid("0a"));
+    }
+
+    @Test
+    void tabOrder_ShouldBreakKeyTiesById_WhenConcurrentInsertsPickSameKey() {
+        // Given
+        Tab first = tab(0, "i", new UUID(0, 1));
+        Tab second = tab(0, "i", new UUID(0, 2));
+        Tab otherWindow = tab(1, "1", new UUID(0, 0));
+        List<Tab> tabs = new ArrayList<>(List.of(otherWindow, second, first));
+
+        // When
+        tabs.sort(TabOrderKeys.TAB_ORDER);
+
+        // Then
+        assertEquals(List.of(first, second, otherWindow), tabs);
+    }
+
+    @Test
+    void spread_ShouldKeepKeysShortAndOrdered_WhenAssigningManyKeysAtOnce() {
+        // When
+        List<String> keys = TabOrderKeys.spread(null, "i", 1000);
+
+        // Then
+        assertEquals(1000, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertTrue(TabOrderKeys.isValid(keys.get(i)));
+            assertTrue(keys.get(i).length() <= 3);
+            assertTrue(keys.get(i).compareTo("i") < 0);
+            if (i > 0) {
+                assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+            }
+        }
+    }
+
+    private Tab tab(int windowIndex, String orderKey, UUID id) {
+        Tab tab = new Tab(UUID.randomUUID(), "Title", "https://example.com", 0, windowIndex);
+        tab.setId(id);
+        tab.setOrderKey(orderKey);
+        return tab;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.tabia.service;
+
+import com.tabia.repository.TabRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TabPositionAllocator
+ */
+@ExtendWith(MockitoExtension.class)
+class TabPositionAllocatorTest {
+
+    @Mock
+    private TabRepository tabRepository;
+
+    private TabPositionAllocator tabPositionAllocator;
+
+    private UUID sessionId;
+
+    @BeforeEach
+    void setUp() {
+        tabPositionAllocator = new TabPositionAllocator(tabRepository, 100, Duration.ofMinutes(10));
+        sessionId = UUID.randomUUID();
+    }
+
+    @Test
+    void nextPosition_ShouldSeedFromDatabaseOnlyOnce() {
+        // Given
+        when(tabRepository.findMaxTabIndexForWindow(sessionId, 0)).thenReturn(4);
+
+        // When
+        int first = tabPositionAllocator.nextPosition(sessionId, 0);
+        int second = tabPositionAllocator.nextPosition(sessionId, 0);
+
+        // Then
+        assertEquals(5, first);
+        assertEquals(6, second);
+        verify(tabRepository, times(1)).findMaxTabIndexForWindow(sessionId, 0);
+    }
+
+    @Test
+    void nextPosition_ShouldGiveEachConcurrentAppendItsOwnSlot() throws Exception {
+        // Given
+        when(tabRepository.findMaxTabIndexForWindow(sessionId, 0)).thenReturn(-1);
+        int appends = 200;
+        Set<Integer> positions = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < appends; i++) {
+            executor.submit(() -> {
+                start.await();
+                positions.add(tabPositionAllocator.nextPosition(sessionId, 0));
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(appends, positions.size());
+        assertTrue(positions.contains(0));
+        assertTrue(positions.contains(appends - 1));
+    }
+
+    @Test
+    void observePosition_ShouldMoveAppendsPastExplicitIndex() {
+        // Given
+        when(tabRepository.findMaxTabIndexForWindow(sessionId, 1)).thenReturn(2);
+        tabPositionAllocator.nextPosition(sessionId, 1);
+
+        // When
+        tabPositionAllocator.observePosition(sessionId, 1, 10);
+
+        // Then
+        assertEquals(11, tabPositionAllocator.nextPosition(sessionId, 1));
+    }
+
+    @Test
+    void nextOrderKey_ShouldGiveConcurrentAppendsDistinctKeysAfterSeed() throws Exception {
+        // Given
+        when(tabRepository.findMaxOrderKeyForWindow(sessionId, 0)).thenReturn(Optional.of("m"));
+        int appends = 200;
+        List<String> keys = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < appends; i++) {
+            executor.submit(() -> {
+                start.await();
+                keys.add(tabPositionAllocator.nextOrderKey(sessionId, 0));
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(appends, Set.copyOf(keys).size());
+        assertTrue(keys.stream().allMatch(key -> key.compareTo("m") > 0 && TabOrderKeys.isValid(key)));
+        verify(tabRepository, times(1)).findMaxOrderKeyForWindow(sessionId, 0);
+    }
+
+    @Test
+    void observeOrderKey_ShouldMoveAppendsPastExplicitKey() {
+        // Given
+        when(tabRepository.findMaxOrderKeyForWindow(sessionId, 1)).thenReturn(Optional.empty());
+        tabPositionAllocator.nextOrderKey(sessionId, 1);
+
+        // When
+        tabPositionAllocator.observeOrderKey(sessionId, 1, "x");
+
+        // Then
+        assertTrue(tabPositionAllocator.nextOrderKey(sessionId, 1).compareTo("x") > 0);
+    }
+
+    @Test
+    void invalidateSession_ShouldReseedOnNextAppend() {
+        // Given
+        when(tabRepository.findMaxTabIndexForWindow(sessionId, 0)).thenReturn(0, 7);
+        tabPositionAllocator.nextPosition(sessionId, 0);
+
+        // When
+        tabPositionAllocator.invalidateSession(sessionId);
+
+        // Then
+        assertEquals(8, tabPositionAllocator.nextPosition(sessionId, 0));
+        verify(tabRepository, times(2)).findMaxTabIndexForWindow(sessionId, 0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tabia.service;
+
+import com.tabia.dto.TabResponse;
+import com.tabia.dto.websocket.TabUpdateBatchMessage;
+import com.tabia.dto.websocket.TabUpdateMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TabUpdateBroadcaster
+ */
+@ExtendWith(MockitoExtension.class)
+class TabUpdateBroadcasterTest {
+
+    @Mock
+    private BroadcastPublisher broadcastPublisher;
+
+    private final SessionEventLog sessionEventLog = new SessionEventLog(16, 100, Duration.ofHours(1));
+
+    private TabUpdateBroadcaster broadcaster;
+
+    private final UUID sessionId = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void publish_ShouldSendImmediately_WhenWindowIsZero() {
+        // Given
+        broadcaster = new TabUpdateBroadcaster(broadcastPublisher, sessionEventLog, Duration.ZERO, 200);
+        TabUpdateMessage update = update("One");
+
+        // When
+        broadcaster.publish(update);
+
+        // Then
+        verify(broadcastPublisher).publish("/topic/session/" + sessionId + "/tabs", update);
+        verify(broadcastPublisher, never()).publish(anyString(), any(), anyString());
+    }
+
+    @Test
+    void flush_ShouldSendBurstAsOneOrderedBatch() {
+        // Given
+        broadcaster = new TabUpdateBroadcaster(broadcastPublisher, sessionEventLog, Duration.ofMinutes(1), 200);
+        broadcaster.publish(update("One"));
+        broadcaster.publish(update("Two"));
+        broadcaster.publish(update("Three"));
+        verifyNoInteractions(broadcastPublisher);
+
+        // When
+        broadcaster.flush(sessionId);
+
+        // Then
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(broadcastPublisher, times(1)).publish(eq("/topic/session/" + sessionId + "/tabs"), sent.capture());
+        TabUpdateBatchMessage batch = (TabUpdateBatchMessage) sent.getValue();
+        assertEquals(List.of("One", "Two", "Three"),
+                     batch.getUpdates().stream().map(update -> update.getTab().getTitle()).toList());
+        assertEquals(batch.getUpdates().get(0).getSequence() + 2, batch.getUpdates().get(2).getSequence());
+        assertEquals(batch.getUpdates().get(2).getSequence(), sessionEventLog.currentSequence(sessionId));
+    }
+
+    @Test
+    void flush_ShouldSplitBatchesAtMaxSize() {
+        // Given
+        broadcaster = new TabUpdateBroadcaster(broadcastPublisher, sessionEventLog, Duration.ofMinutes(1), 2);
+        for (int i = 0; i < 5; i++) {
+            broadcaster.publish(update("Tab " + i));
+        }
+
+        // When
+        broadcaster.flush(sessionId);
+
+        // Then
+        verify(broadcastPublisher, times(2)).publish(any(String.class), any(TabUpdateBatchMessage.class));
+        verify(broadcastPublisher, times(1)).publish(any(String.class), any(TabUpdateMessage.class));
+    }
+
+    private TabUpdateMessage update(String title) {
+        TabResponse tab = new TabResponse();
+        tab.setTitle(title);
+        return new TabUpdateMessage(TabUpdateMessage.UpdateType.TAB_ADDED, sessionId, tab, "user-1", "User One");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,314 @@
+package com.tabia.service;
+
+import com.tabia.dto.websocket.UserPresenceMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserPresenceService
+ */
+@ExtendWith(MockitoExtension.class)
+class UserPresenceServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private UserPresenceService userPresenceService;
+
+    private UUID firstSessionId;
+    private UUID secondSessionId;
+
+    @BeforeEach
+    void setUp() {
+        userPresenceService = new UserPresenceService(messagingTemplate, Duration.ofSeconds(90), Duration.ofSeconds(1),
+                                                      Duration.ZERO, Duration.ZERO, true, Duration.ofSeconds(30));
+        firstSessionId = UUID.randomUUID();
+        secondSessionId = UUID.randomUUID();
+    }
+
+    @Test
+    void removeConnection_ShouldOnlyAnnounceSessionsUserWasIn() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        userPresenceService.joinSession(firstSessionId, "conn-2", "user-2", "User Two", "two@example.com");
+        userPresenceService.joinSession(secondSessionId, "conn-2", "user-2", "User Two", "two@example.com");
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.removeConnection("conn-1", "user-1");
+
+        // Then
+        assertFalse(userPresenceService.isUserInSession(firstSessionId, "user-1"));
+        assertTrue(userPresenceService.isUserInSession(firstSessionId, "user-2"));
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), any(Object.class));
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/session/" + secondSessionId + "/presence"), any(Object.class));
+    }
+
+    @Test
+    void removeConnection_ShouldForgetSessionsLeftEarlier() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        userPresenceService.leaveSession(firstSessionId, "conn-1", "user-1");
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.removeConnection("conn-1", "user-1");
+
+        // Then
+        assertEquals(0, userPresenceService.getActiveUserCount(firstSessionId));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void expireIdleUsers_ShouldRemoveStaleUsersWithOneUpdatePerSession() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        userPresenceService.joinSession(firstSessionId, "conn-2", "user-2", "User Two", "two@example.com");
+        userPresenceService.joinSession(secondSessionId, "conn-2", "user-2", "User Two", "two@example.com");
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.expireIdleUsers(System.currentTimeMillis() + Duration.ofSeconds(95).toMillis());
+
+        // Then
+        assertEquals(0, userPresenceService.getActiveUserCount(firstSessionId));
+        assertEquals(0, userPresenceService.getActiveUserCount(secondSessionId));
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), any(Object.class));
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/session/" + secondSessionId + "/presence"), any(Object.class));
+    }
+
+    @Test
+    void expireIdleUsers_ShouldKeepUsersSeenWithinTtl() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        long start = System.currentTimeMillis();
+        userPresenceService.expireIdleUsers(start + Duration.ofSeconds(60).toMillis());
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.expireIdleUsers(start + Duration.ofSeconds(85).toMillis());
+
+        // Then
+        assertTrue(userPresenceService.isUserInSession(firstSessionId, "user-1"));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void joinSession_ShouldCoalesceBurstIntoSingleBroadcast() {
+        // Given
+        UserPresenceService coalescing = new UserPresenceService(messagingTemplate, Duration.ofSeconds(90),
+                                                                 Duration.ofSeconds(1), Duration.ofMillis(50),
+                                                                 Duration.ofSeconds(1), false, Duration.ofSeconds(30));
+
+        // When
+        for (int i = 0; i < 30; i++) {
+            coalescing.joinSession(firstSessionId, "conn-" + i, "user-" + i, "User " + i, "user" + i + "@example.com");
+        }
+
+        // Then
+        verify(messagingTemplate, after(500).times(1))
+            .convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), any(Object.class));
+        coalescing.shutdown();
+    }
+
+    @Test
+    void leaveSession_ShouldBroadcastVersionedDeltaWithoutUserList() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        userPresenceService.joinSession(firstSessionId, "conn-2", "user-2", "User Two", "two@example.com");
+        long joinedVersion = userPresenceService.getPresenceSnapshot(firstSessionId).getVersion();
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.leaveSession(firstSessionId, "conn-1", "user-1");
+
+        // Then
+        ArgumentCaptor<UserPresenceMessage> captor = ArgumentCaptor.forClass(UserPresenceMessage.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), captor.capture());
+        UserPresenceMessage delta = captor.getValue();
+        assertEquals(UserPresenceMessage.PresenceType.PRESENCE_DELTA, delta.getType());
+        assertEquals(joinedVersion + 1, delta.getVersion());
+        assertEquals(List.of("user-1"), delta.getLeft());
+        assertTrue(delta.getJoined().isEmpty());
+        assertNull(delta.getActiveUsers());
+
+        UserPresenceMessage snapshot = userPresenceService.getPresenceSnapshot(firstSessionId);
+        assertEquals(joinedVersion + 1, snapshot.getVersion());
+        assertEquals(1, snapshot.getActiveUsers().size());
+    }
+
+    @Test
+    void getActiveUsersForSession_ShouldReturnSameSnapshotUntilMembershipChanges() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        List<UserPresenceMessage.UserInfo> first = userPresenceService.getActiveUsersForSession(firstSessionId);
+
+        // When
+        userPresenceService.updateUserActivity(firstSessionId, "user-1");
+        List<UserPresenceMessage.UserInfo> second = userPresenceService.getActiveUsersForSession(firstSessionId);
+        userPresenceService.joinSession(firstSessionId, "conn-2", "user-2", "User Two", "two@example.com");
+        List<UserPresenceMessage.UserInfo> third = userPresenceService.getActiveUsersForSession(firstSessionId);
+
+        // Then
+        assertSame(first, second);
+        assertNotSame(second, third);
+        assertEquals(2, third.size());
+        assertThrows(UnsupportedOperationException.class, () -> third.remove(0));
+        assertSame(userPresenceService.getPresenceSnapshot(firstSessionId),
+                   userPresenceService.getPresenceSnapshot(firstSessionId));
+    }
+
+    @Test
+    void removeConnection_ShouldOnlyAnnounceLeaveWhenLastConnectionCloses() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "window-1", "user-1", "User One", "one@example.com");
+        userPresenceService.joinSession(firstSessionId, "window-2", "user-1", "User One", "one@example.com");
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.removeConnection("window-1", "user-1");
+
+        // Then
+        assertTrue(userPresenceService.isUserInSession(firstSessionId, "user-1"));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+
+        // When
+        userPresenceService.removeConnection("window-2", "user-1");
+
+        // Then
+        assertFalse(userPresenceService.isUserInSession(firstSessionId, "user-1"));
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), any(Object.class));
+    }
+
+    @Test
+    void leaveSession_ShouldRetireVersionAndKeepVersionsIncreasing_WhenSessionEmpties() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        userPresenceService.leaveSession(firstSessionId, "conn-1", "user-1");
+        ArgumentCaptor<UserPresenceMessage> captor = ArgumentCaptor.forClass(UserPresenceMessage.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), captor.capture());
+        long leftVersion = captor.getValue().getVersion();
+        clearInvocations(messagingTemplate);
+
+        // When
+        long retiredVersion = userPresenceService.getPresenceSnapshot(firstSessionId).getVersion();
+        userPresenceService.joinSession(firstSessionId, "conn-2", "user-1", "User One", "one@example.com");
+
+        // Then
+        assertTrue(retiredVersion >= leftVersion);
+        verify(messagingTemplate).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), captor.capture());
+        assertTrue(captor.getValue().getVersion() > leftVersion);
+    }
+
+    @Test
+    void getPresenceSnapshot_ShouldReportVersionNextDeltaFollows_WhenJoinIsNotBroadcastYet() {
+        // Given
+        UserPresenceService coalescing = new UserPresenceService(messagingTemplate, Duration.ofSeconds(90),
+                                                                 Duration.ofSeconds(1), Duration.ofMillis(50),
+                                                                 Duration.ofSeconds(1), false, Duration.ofSeconds(30));
+        coalescing.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+
+        // When
+        long snapshotVersion = coalescing.getPresenceSnapshot(firstSessionId).getVersion();
+
+        // Then
+        ArgumentCaptor<UserPresenceMessage> captor = ArgumentCaptor.forClass(UserPresenceMessage.class);
+        verify(messagingTemplate, timeout(1000))
+            .convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), captor.capture());
+        assertTrue(snapshotVersion > 0);
+        assertEquals(snapshotVersion + 1, captor.getValue().getVersion());
+        coalescing.shutdown();
+    }
+
+    @Test
+    void updateUserActivity_ShouldReportMissingUser_WhenExpiredWithOpenConnection() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        userPresenceService.expireIdleUsers(System.currentTimeMillis() + Duration.ofSeconds(120).toMillis());
+
+        // When
+        boolean present = userPresenceService.updateUserActivity(firstSessionId, "user-1");
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+
+        // Then
+        assertFalse(present);
+        assertTrue(userPresenceService.isUserInSession(firstSessionId, "user-1"));
+        assertTrue(userPresenceService.updateUserActivity(firstSessionId, "user-1"));
+    }
+
+    @Test
+    void getPresenceSnapshot_ShouldListRemoteOriginUsers_WhenAnotherNodeAnnounced() {
+        // Given
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        UserPresenceMessage announcement = new UserPresenceMessage();
+        announcement.setType(UserPresenceMessage.PresenceType.PRESENCE_SNAPSHOT);
+        announcement.setSessionId(firstSessionId);
+        announcement.setOrigin("other-node");
+        announcement.setVersion(7L);
+        announcement.setActiveUsers(List.of(new UserPresenceMessage.UserInfo("user-2", "User Two", "two@example.com", null)));
+        UserPresenceMessage delta = new UserPresenceMessage();
+        delta.setType(UserPresenceMessage.PresenceType.PRESENCE_DELTA);
+        delta.setSessionId(firstSessionId);
+        delta.setOrigin("other-node");
+        delta.setVersion(8L);
+        delta.setJoined(List.of(new UserPresenceMessage.UserInfo("user-3", "User Three", "three@example.com", null)));
+
+        // When
+        userPresenceService.applyRemotePresence(announcement);
+        userPresenceService.applyRemotePresence(delta);
+        UserPresenceMessage snapshot = userPresenceService.getPresenceSnapshot(firstSessionId);
+
+        // Then
+        assertEquals(2, snapshot.getOrigins().size());
+        assertEquals(snapshot.getOrigin(), snapshot.getOrigins().get(0).getOrigin());
+        assertEquals("other-node", snapshot.getOrigins().get(1).getOrigin());
+        assertEquals(8L, snapshot.getOrigins().get(1).getVersion());
+        assertEquals(List.of("user-1", "user-2", "user-3"),
+                     snapshot.getActiveUsers().stream().map(UserPresenceMessage.UserInfo::getUserId).toList());
+    }
+
+    @Test
+    void announcePresence_ShouldDropRemoteOrigin_WhenItStopsAnnouncing() {
+        // Given
+        UserPresenceMessage announcement = new UserPresenceMessage();
+        announcement.setType(UserPresenceMessage.PresenceType.PRESENCE_SNAPSHOT);
+        announcement.setSessionId(firstSessionId);
+        announcement.setOrigin("other-node");
+        announcement.setVersion(7L);
+        announcement.setActiveUsers(List.of(new UserPresenceMessage.UserInfo("user-2", "User Two", "two@example.com", null)));
+        userPresenceService.applyRemotePresence(announcement);
+        userPresenceService.joinSession(firstSessionId, "conn-1", "user-1", "User One", "one@example.com");
+        clearInvocations(messagingTemplate);
+
+        // When
+        userPresenceService.announcePresence(System.currentTimeMillis() + Duration.ofSeconds(91).toMillis());
+
+        // Then
+        ArgumentCaptor<UserPresenceMessage> captor = ArgumentCaptor.forClass(UserPresenceMessage.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/session/" + firstSessionId + "/presence"), captor.capture(),
+                                                 headers.capture());
+        assertEquals("presence:" + firstSessionId + ":" + captor.getValue().getOrigin(),
+                     headers.getValue().get(BroadcastPublisher.SUPERSEDE_KEY_HEADER));
+        assertEquals(UserPresenceMessage.PresenceType.PRESENCE_SNAPSHOT, captor.getValue().getType());
+        assertEquals(1, captor.getValue().getActiveUsers().size());
+        assertEquals(1, userPresenceService.getPresenceSnapshot(firstSessionId).getOrigins().size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.tabia.service;
+
+import com.tabia.model.User;
+import com.tabia.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserProfileCache
+ */
+@ExtendWith(MockitoExtension.class)
+class UserProfileCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserProfileCache userProfileCache;
+
+    @BeforeEach
+    void setUp() {
+        userProfileCache = new UserProfileCache(userRepository, 100, Duration.ofMinutes(10));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void putAfterCommit_ShouldOnlyCacheProfile_OnceTransactionCommits() {
+        // Given
+        when(userRepository.findById("user-1")).thenReturn(Optional.empty());
+
+        // When
+        userProfileCache.putAfterCommit(new User("user-1", "one@example.com", "User One", null));
+        Optional<UserProfileCache.UserProfile> beforeCommit = userProfileCache.get("user-1");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertTrue(beforeCommit.isEmpty());
+        assertEquals("User One", userProfileCache.get("user-1").map(UserProfileCache.UserProfile::getName).orElse(null));
+    }
+
+    @Test
+    void putAfterCommit_ShouldLeaveCacheUntouched_WhenTransactionRollsBack() {
+        // Given
+        when(userRepository.findById("user-1")).thenReturn(Optional.empty());
+
+        // When
+        userProfileCache.putAfterCommit(new User("user-1", "one@example.com", "User One", null));
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertTrue(userProfileCache.get("user-1").isEmpty());
+    }
+}
\ No newline at end of file
@@ -31,6 +31,9 @@ export interface TabDTO {
   url: string;
   tabIndex: number;
   windowIndex: number;
+  orderKey?: string;
+  orderClock?: number;
+  orderReplica?: string;
   addedByUserId?: string;
   createdAt: string;
 }
@@ -76,6 +79,14 @@ export interface AddTabRequest {
   url: string;
   tabIndex?: number;
   windowIndex?: number;
+  orderKey?: string;
+}
+
+export interface MoveTabRequest {
+  orderKey: string;
+  windowIndex: number;
+  clock: number;
+  replicaId: string;
 }
 
 export interface UpdateTabRequest {
@@ -133,6 +144,8 @@ export interface SessionUpdateMessage {
   sessionName?: string;
   userId: string;
   userName?: string;
+  sequence?: number;
+  origin?: string; // Node that numbered the sequence; sequences from different origins are unrelated
   timestamp: string;
 }
 
@@ -142,19 +155,47 @@ export interface TabUpdateMessage {
   tab: TabDTO;
   userId: string;
   userName?: string;
+  sequence?: number;
+  origin?: string;
+  timestamp: string;
+}
+
+export interface SessionSnapshotMessage {
+  session: SessionDTO;
+  origin: string;
+  sequence?: number;
+  presence: PresenceUpdateMessage;
+}
+
+export interface TabUpdateBatchMessage {
+  sessionId: string;
+  updates: TabUpdateMessage[];
   timestamp: string;
 }
 
 export interface PresenceUpdateMessage {
-  type: 'USER_JOINED' | 'USER_LEFT' | 'PRESENCE_UPDATE';
+  type: 'USER_JOINED' | 'USER_LEFT' | 'PRESENCE_UPDATE' | 'PRESENCE_DELTA' | 'PRESENCE_SNAPSHOT';
   sessionId: string;
   userId: string;
   userName?: string;
   userEmail?: string;
   activeUsers: UserPresence[];
+  // Node that sent the message; versions only order messages from the same origin
+  origin?: string;
+  version?: number;
+  joined?: UserPresence[];
+  left?: string[];
+  // Snapshots list every node's users with that node's version
+  origins?: OriginPresence[];
   timestamp: string;
 }
 
+export interface OriginPresence {
+  origin: string;
+  version: number;
+  activeUsers: UserPresence[];
+}
+
 export interface UserPresence {
   userId: string;
   userName?: string;
@@ -0,0 +1,87 @@
+/**
+ * Tab position keys, mirroring the backend's TabOrderKeys
+ * Keys are base-36 strings compared as plain strings; a key always fits between two others,
+ * so a move or insert only rewrites the tab itself. Generated keys end in the replica's site tag,
+ * so replicas inserting into the same gap at once never produce equal keys
+ */
+const DIGITS = '0123456789abcdefghijklmnopqrstuvwxyz';
+const BASE = DIGITS.length;
+const SITE_LENGTH = 6;
+
+const digit = (c) => {
+    const value = DIGITS.indexOf(c);
+    if (value < 0) {
+        throw new Error(`Invalid position key character: ${c}`);
+    }
+    return value;
+};
+
+/**
+ * Random site tag; its last digit is never zero so tagged keys stay valid
+ */
+export function newSite() {
+    const values = crypto.getRandomValues(new Uint32Array(SITE_LENGTH));
+    let site = '';
+    for (let i = 0; i < SITE_LENGTH - 1; i++) {
+        site += DIGITS[values[i] % BASE];
+    }
+    return site + DIGITS[1 + values[SITE_LENGTH - 1] % (BASE - 1)];
+}
+
+/**
+ * Generate a key strictly between two keys, either of which may be null for an open end,
+ * tagged with the given site
+ * The position part never prefixes upper, so the tag keeps the key below it
+ */
+export function keyBetween(lower, upper, site = '') {
+    if (lower != null && upper != null && lower >= upper) {
+        throw new Error('Lower position key must sort before upper key');
+    }
+    
+    // The first key of an empty window sits in the middle, leaving room on both sides
+    const empty = lower == null && upper == null;
+    let key = '';
+    for (let i = 0; ; i++) {
+        const lowerOpen = lower == null || i >= lower.length;
+        const upperOpen = upper == null || i >= upper.length;
+        const low = lowerOpen ? 0 : digit(lower[i]);
+        const high = upperOpen ? BASE : digit(upper[i]);
+        
+        if (high - low > 1) {
+            // Step by one at an open end so repeated appends or prepends keep keys short
+            const next = empty || !(lowerOpen || upperOpen)
+                ? Math.floor((low + high) / 2)
+                : upperOpen ? low + 1 : high - 1;
+            return key + DIGITS[next] + site;
+        }
+        key += DIGITS[low];
+        if (high - low === 1) {
+            // Prefix now sorts below upper whatever follows, only lower still bounds us
+            upper = null;
+        }
+    }
+}
+
+/**
+ * Order of tabs in a session: window, then position key, then id
+ */
+export function compareTabs(a, b) {
+    const byValue = (x, y) => (x == null ? (y == null ? 0 : -1) : y == null ? 1 : x < y ? -1 : x > y ? 1 : 0);
+    return byValue(a.windowIndex, b.windowIndex)
+        || byValue(a.orderKey, b.orderKey)
+        || byValue(a.tabIndex, b.tabIndex)
+        || byValue(a.id, b.id);
+}
+
+/**
+ * Whether a move stamp wins over the one already applied to the tab
+ * Same rule as the server, so every replica ends on the same position
+ */
+export function isNewerMove(incoming, current) {
+    const clock = incoming.orderClock ?? 0;
+    const currentClock = current.orderClock ?? 0;
+    if (clock !== currentClock) {
+        return clock > currentClock;
+    }
+    return (incoming.orderReplica ?? '') > (current.orderReplica ?? '');
+}
@@ -1,4 +1,5 @@
 import { auth } from '../firebase/firebase.js';
+import { keyBetween, newSite } from './tabOrder.js';
 
 /**
  * WebSocket client for real-time collaboration
@@ -12,8 +13,15 @@ class TabiaWebSocketClient {
         this.reconnectAttempts = 0;
         this.maxReconnectAttempts = 5;
         this.reconnectDelay = 1000; // Start with 1 second
+        this.requestTimeout = 10000; // Snapshot and replay replies slower than this are retried
+        this.maxRequestAttempts = 5;
         this.subscriptions = new Map();
+        this.lastSequences = new Map(); // sessionId -> { node, last: origin -> last update sequence }, kept across reconnects
         this.messageHandlers = new Map();
+        this.orderClock = 0; // Lamport clock stamped on tab moves
+        this.replicaId = crypto.randomUUID().replace(/-/g, ''); // Breaks ties between moves with the same clock
+        this.orderSite = newSite(); // Tags the position keys this client generates
+        this.pendingMoves = new Map(); // tabId -> latest move made while disconnected
         this.currentUser = null;
         
         // Bind methods to preserve 'this' context
@@ -55,6 +63,9 @@ class TabiaWebSocketClient {
                     this.reconnectAttempts = 0;
                     this.reconnectDelay = 1000;
                     
+                    // Moves made offline keep their stamps, so they merge with what others did meanwhile
+                    this.flushPendingMoves();
+                    
                     // Trigger connection event
                     this.triggerEvent('connected', { user: this.currentUser });
                 },
@@ -120,6 +131,53 @@ class TabiaWebSocketClient {
         
         const subscriptions = {};
         
+        // Tab and session updates share one per-session sequence per origin node; live updates are
+        // held back while missed ones are replayed, after a reconnect or when a sequence is skipped.
+        // Only the node this client is connected to (position.node) can replay its own updates
+        const position = this.lastSequences.get(sessionId) ?? { node: null, last: {} };
+        this.lastSequences.set(sessionId, position);
+        const stream = { replaying: false, buffered: [] };
+        let requestReplay;
+        // Snapshot and replay replies both carry the presence snapshot; set once presence is subscribed
+        let seedPresence = () => {};
+        
+        const deliver = (event) => {
+            const last = position.last[event.origin];
+            if (event.sequence != null && last != null) {
+                if (event.sequence <= last) {
+                    return;
+                }
+                if (event.sequence > last + 1) {
+                    console.log('Update sequence gap:', event.origin, last, event.sequence);
+                    if (event.origin === position.node) {
+                        // Fetch the missed updates before applying this one
+                        stream.buffered.unshift(event);
+                        requestReplay();
+                        return;
+                    }
+                    // Another node's updates cannot be replayed here, reload the session instead
+                    handlers.onResyncRequired?.({ sessionId, origin: event.origin, currentSequence: event.sequence, resetRequired: true });
+                }
+            }
+            this.observeOrderClock(event.tab);
+            if (event.sequence != null) {
+                position.last[event.origin] = event.sequence;
+            }
+            if (event.type?.startsWith('TAB_')) {
+                handlers.onTabUpdate?.(event);
+            } else {
+                handlers.onSessionUpdate?.(event);
+            }
+        };
+        
+        const receive = (event) => {
+            if (stream.replaying) {
+                stream.buffered.push(event);
+            } else {
+                deliver(event);
+            }
+        };
+        
         // Subscribe to session updates
         if (handlers.onSessionUpdate) {
             subscriptions.updates = this.stompClient.subscribe(
@@ -127,7 +185,7 @@ class TabiaWebSocketClient {
                 (message) => {
                     const data = JSON.parse(message.body);
                     console.log('Session update received:', data);
-                    handlers.onSessionUpdate(data);
+                    receive(data);
                 }
             );
         }
@@ -139,27 +197,258 @@ class TabiaWebSocketClient {
                 (message) => {
                     const data = JSON.parse(message.body);
                     console.log('Tab update received:', data);
-                    handlers.onTabUpdate(data);
+                    // Bursts arrive as one batch with the updates in order
+                    if (Array.isArray(data.updates)) {
+                        data.updates.forEach(receive);
+                    } else {
+                        receive(data);
+                    }
                 }
             );
         }
         
-        // Subscribe to presence updates
-        if (handlers.onPresenceUpdate) {
-            subscriptions.presence = this.stompClient.subscribe(
-                `/topic/session/${sessionId}/presence`,
+        const releaseBuffered = () => {
+            stream.replaying = false;
+            while (!stream.replaying && stream.buffered.length > 0) {
+                deliver(stream.buffered.shift());
+            }
+        };
+        
+        // Snapshot or replay request awaiting its reply; updates stay buffered while it is retried
+        const pending = { key: null, destination: null, retry: null, timer: null, attempts: 0 };
+        
+        const awaitReply = (key, destination, retry) => {
+            clearTimeout(pending.timer);
+            Object.assign(pending, { key, destination, retry });
+            pending.timer = setTimeout(
+                () => failRequest({ status: 504, message: 'No reply', destination }), this.requestTimeout
+            );
+        };
+        
+        const completeRequest = () => {
+            clearTimeout(pending.timer);
+            pending.key = null;
+            pending.attempts = 0;
+        };
+        
+        const failRequest = (error) => {
+            const { key, retry } = pending;
+            if (key === null) {
+                return;
+            }
+            clearTimeout(pending.timer);
+            subscriptions[key]?.unsubscribe();
+            subscriptions[key] = null;
+            pending.key = null;
+            pending.attempts++;
+            
+            if (error.status !== 404 && pending.attempts < this.maxRequestAttempts) {
+                const delay = 1000 * Math.pow(2, pending.attempts - 1);
+                console.warn(`Session ${key} request failed, retrying in ${delay}ms:`, error.message);
+                setTimeout(() => {
+                    if (this.isConnected && this.subscriptions.get(subscriptionKey) === subscriptions) {
+                        retry();
+                    }
+                }, delay);
+                return;
+            }
+            
+            // Give up: stop holding updates back and let the caller reload the session
+            console.error(`Session ${key} request failed:`, sessionId, error.message);
+            pending.attempts = 0;
+            delete position.last[position.node];
+            releaseBuffered();
+            if (key === 'replay') {
+                handlers.onResyncRequired?.({ sessionId, resetRequired: true });
+            } else {
+                handlers.onError?.({ sessionId, ...error });
+            }
+        };
+        subscriptions.pendingRequest = { unsubscribe: () => clearTimeout(pending.timer) };
+        
+        // Failed snapshot and replay requests come back on the user's error queue
+        subscriptions.errors = this.stompClient.subscribe('/user/queue/errors', (message) => {
+            const error = JSON.parse(message.body);
+            if (pending.key !== null && error.destination === pending.destination) {
+                failRequest(error);
+            }
+        });
+        
+        requestReplay = () => {
+            stream.replaying = true;
+            subscriptions.replay?.unsubscribe();
+            const destination = `/app/session/${sessionId}/replay`;
+            subscriptions.replay = this.stompClient.subscribe(
+                destination,
+                (message) => {
+                    completeRequest();
+                    const data = JSON.parse(message.body);
+                    if (data.presence) {
+                        seedPresence(data.presence);
+                    }
+                    if (data.resetRequired) {
+                        // Gap is no longer buffered on this node, or was numbered by another one
+                        console.log('Update replay unavailable, reloading session:', sessionId);
+                        position.node = data.origin;
+                        if (data.currentSequence != null) {
+                            position.last[data.origin] = data.currentSequence;
+                        }
+                        handlers.onResyncRequired?.(data);
+                    } else {
+                        (data.events || []).forEach(deliver);
+                    }
+                    releaseBuffered();
+                },
+                { 'last-origin': position.node, 'last-sequence': String(position.last[position.node]) }
+            );
+            awaitReply('replay', destination, requestReplay);
+        };
+        
+        // Subscribing replies with the session, its tabs, the node's current sequence and presence;
+        // live updates from that node newer than the snapshot's sequence then apply on top of it
+        const requestSnapshot = () => {
+            stream.replaying = true;
+            const destination = `/app/session/${sessionId}`;
+            subscriptions.snapshot = this.stompClient.subscribe(
+                destination,
                 (message) => {
+                    completeRequest();
                     const data = JSON.parse(message.body);
-                    console.log('Presence update received:', data);
-                    handlers.onPresenceUpdate(data);
+                    position.node = data.origin;
+                    if (data.sequence != null) {
+                        position.last[data.origin] = data.sequence;
+                    } else {
+                        delete position.last[data.origin];
+                    }
+                    (data.session?.tabs || []).forEach(tab => this.observeOrderClock(tab));
+                    if (data.presence) {
+                        seedPresence(data.presence);
+                    }
+                    handlers.onSnapshot?.(data);
+                    releaseBuffered();
                 }
             );
+            awaitReply('snapshot', destination, requestSnapshot);
+        };
+        
+        // Either request also joins presence, so joining a session costs one access check
+        if (handlers.onSnapshot || position.last[position.node] == null) {
+            requestSnapshot();
+        } else {
+            // Resuming a session: fetch only the updates missed while disconnected
+            requestReplay();
         }
         
-        this.subscriptions.set(subscriptionKey, subscriptions);
+        // Subscribe to presence: versioned deltas on the topic, full snapshots in the snapshot or replay
+        // reply and on resync.
+        // Each node versions its own users, so versions are tracked per origin and the users merged
+        if (handlers.onPresenceUpdate) {
+            const presence = { synced: false, local: null, origins: new Map(), buffered: [] };
+            const staleAfter = 90000;
+            
+            const publish = (data) => {
+                const users = new Map();
+                presence.origins.forEach(state => state.users.forEach((user, userId) => {
+                    if (!users.has(userId)) {
+                        users.set(userId, user);
+                    }
+                }));
+                handlers.onPresenceUpdate({ ...data, activeUsers: Array.from(users.values()) });
+            };
+            
+            const replaceOrigin = (origin, version, activeUsers) => {
+                presence.origins.set(origin, {
+                    version,
+                    users: new Map((activeUsers || []).map(user => [user.userId, user])),
+                    seenAt: Date.now()
+                });
+            };
+            
+            // Nodes that stopped announcing (stopped or crashed) take their users with them
+            const pruneStale = () => {
+                const now = Date.now();
+                presence.origins.forEach((state, origin) => {
+                    if (origin !== presence.local && now - state.seenAt > staleAfter) {
+                        presence.origins.delete(origin);
+                    }
+                });
+            };
+            
+            const onTopic = (data) => {
+                if (!presence.synced) {
+                    presence.buffered.push(data);
+                    return;
+                }
+                pruneStale();
+                const known = presence.origins.get(data.origin);
+                if (data.type === 'PRESENCE_SNAPSHOT') {
+                    // Periodic announcement of one node's users
+                    if (!known || data.version >= known.version) {
+                        replaceOrigin(data.origin, data.version, data.activeUsers);
+                        publish(data);
+                    }
+                    return;
+                }
+                if (!known) {
+                    // A node this client has not heard from yet; its next announcement corrects any misses
+                    replaceOrigin(data.origin, data.version, data.joined);
+                    publish(data);
+                    return;
+                }
+                if (data.version <= known.version) {
+                    return;
+                }
+                if (data.version !== known.version + 1) {
+                    // Missed a delta, ask for a fresh snapshot and buffer until it arrives
+                    console.log('Presence version gap, resyncing:', data.origin, known.version, data.version);
+                    presence.synced = false;
+                    presence.buffered = [data];
+                    this.sendMessage(`/app/session/${sessionId}/presence/resync`, {});
+                    return;
+                }
+                (data.left || []).forEach(userId => known.users.delete(userId));
+                (data.joined || []).forEach(user => known.users.set(user.userId, user));
+                known.version = data.version;
+                known.seenAt = Date.now();
+                publish(data);
+            };
+            
+            const applySnapshot = (data) => {
+                if (data.sessionId !== sessionId) {
+                    return;
+                }
+                presence.origins = new Map();
+                presence.local = data.origin;
+                (data.origins || [{ origin: data.origin, version: data.version, activeUsers: data.activeUsers }])
+                    .forEach(state => replaceOrigin(state.origin, state.version, state.activeUsers));
+                presence.synced = true;
+                publish(data);
+                
+                // Deltas that raced ahead of the snapshot still apply on top of it
+                const buffered = presence.buffered;
+                presence.buffered = [];
+                buffered.forEach(onTopic);
+            };
+            seedPresence = applySnapshot;
+            
+            subscriptions.presence = this.stompClient.subscribe(
+                `/topic/session/${sessionId}/presence`,
+                (message) => onTopic(JSON.parse(message.body))
+            );
+            subscriptions.presenceResync = this.stompClient.subscribe(
+                '/user/queue/presence', (message) => applySnapshot(JSON.parse(message.body))
+            );
+        }
         
-        // Send join message to activate presence tracking
-        this.sendMessage(`/app/session/${sessionId}/join`, {});
+        // Heartbeat keeps presence alive while the session is open but idle
+        const heartbeat = setInterval(() => {
+            if (this.isConnected) {
+                this.sendMessage(`/app/session/${sessionId}/heartbeat`, {});
+            }
+        }, 30000);
+        subscriptions.heartbeat = { unsubscribe: () => clearInterval(heartbeat) };
+        
+        this.subscriptions.set(subscriptionKey, subscriptions);
         
         return subscriptions;
     }
@@ -219,6 +508,48 @@ class TabiaWebSocketClient {
         this.sendMessage(`/app/session/${sessionId}/update-tab/${tabId}`, updateData);
     }
     
+    /**
+     * Move tab between two neighbours via WebSocket
+     * Returns the stamped move for the caller to apply right away; while disconnected it is queued.
+     * A move that loses to a concurrent one comes back on /user/queue/errors with the winning position
+     */
+    moveTab(sessionId, tabId, { before = null, after = null, windowIndex }) {
+        const move = {
+            orderKey: keyBetween(before?.orderKey ?? null, after?.orderKey ?? null, this.orderSite),
+            windowIndex,
+            clock: ++this.orderClock,
+            replicaId: this.replicaId
+        };
+        
+        if (this.isConnected) {
+            this.sendMessage(`/app/session/${sessionId}/move-tab/${tabId}`, move);
+        } else {
+            // Only the last move of a tab matters, it supersedes earlier ones
+            this.pendingMoves.set(tabId, { sessionId, move });
+        }
+        return { ...move, orderClock: move.clock, orderReplica: move.replicaId };
+    }
+    
+    /**
+     * Send moves queued while disconnected
+     */
+    flushPendingMoves() {
+        const pending = Array.from(this.pendingMoves.entries());
+        this.pendingMoves.clear();
+        pending.forEach(([tabId, { sessionId, move }]) => {
+            this.sendMessage(`/app/session/${sessionId}/move-tab/${tabId}`, move);
+        });
+    }
+    
+    /**
+     * Advance the Lamport clock past a tab's last move
+     */
+    observeOrderClock(tab) {
+        if (tab?.orderClock != null) {
+            this.orderClock = Math.max(this.orderClock, tab.orderClock);
+        }
+    }
+    
     /**
      * Send message to server
      */